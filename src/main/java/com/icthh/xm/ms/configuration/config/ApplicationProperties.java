@@ -38,6 +38,8 @@ public class ApplicationProperties {
     private Boolean envConfigExternalizationEnabled;
     private Integer updateConfigWaitTimeSecond = 120;
     private Integer versionCacheMaxSize = 100;
+    // parsed documents are weighed by size of their content
+    private Long parsedDocumentCacheMaxBytes = 32L * 1024 * 1024;
     private Boolean sendRefreshOnStartup;
     private Integer jwkUpdateDebounceSeconds = 30;
 
@@ -54,6 +56,16 @@ public class ApplicationProperties {
         private Integer depth = -1;
         private Integer maxWaitTimeSecond = 30;
         private Boolean cloneRepositoryOnUpdate = false;
+        private Boolean readFromObjectDatabase = false;
+        // bare clone: configurations are read from object database, commits are built in memory
+        private Boolean bare = false;
+        // fetch in background, reads use fetched state instead of pull, 0 disables, ignored with clone on update
+        private Integer backgroundFetchIntervalSeconds = 0;
+        private Integer missingCommitCacheTtlSeconds = 5;
+        // content of configurations read by commit id, commits are immutable so entries are only evicted by size
+        private Long historicalContentCacheMaxBytes = 64L * 1024 * 1024;
+        // writes within the window are persisted by one commit, 0 disables group commits
+        private Integer groupCommitWindowMillis = 0;
         private SshProperties ssh = new SshProperties();
 
         @Getter
@@ -119,6 +131,8 @@ public class ApplicationProperties {
         private String configPath;
         private Boolean pathStyleAccess;
         private S3Rules rules = new S3Rules();
+        // max count of parallel object reads and writes, 1 runs requests sequentially
+        private Integer concurrency = 16;
 
     }
 
@@ -129,6 +143,22 @@ public class ApplicationProperties {
         private List<String> excludePaths = Collections.emptyList();
     }
 
+    private MemoryStorageProperties memoryStorage = new MemoryStorageProperties();
+
+    @Getter
+    @Setter
+    public static class MemoryStorageProperties {
+
+        /**
+         * When true tenants are processed in parallel, level by level of the tenant alias tree.
+         * Processors are then called concurrently for different tenants,
+         * see thread-safety contract of {@link com.icthh.xm.ms.configuration.service.processors.TenantConfigurationProcessor}.
+         */
+        private boolean parallelProcessingEnabled = false;
+        /** Max number of tenants processed at the same time. */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
     private List<String> excludeConfigPatterns;
     private Boolean roleNameProcessorDisabled;
 
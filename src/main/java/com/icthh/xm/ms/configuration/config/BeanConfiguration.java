@@ -22,6 +22,7 @@ import com.icthh.xm.ms.configuration.service.FileConfigWatcher;
 import com.icthh.xm.ms.configuration.service.FileService;
 import com.icthh.xm.ms.configuration.service.TenantAliasTreeStorage;
 import com.icthh.xm.ms.configuration.service.processors.TenantConfigurationProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.URI;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
@@ -58,6 +59,7 @@ public class BeanConfiguration {
      * @param authenticationContextHolder the authentication context holder
      * @param requestContextHolder the request context holder
      * @param fileService the file service
+     * @param meterRegistry the meter registry for repository caches
      * @return the configured {@link JGitRepository}
      */
     @Bean
@@ -68,11 +70,12 @@ public class BeanConfiguration {
             TenantContextHolder tenantContextHolder,
             XmAuthenticationContextHolder authenticationContextHolder,
             XmRequestContextHolder requestContextHolder,
-            FileService fileService) {
+            FileService fileService,
+            MeterRegistry meterRegistry) {
 
         log.info("Creating Git repository bean");
         return new JGitRepository(applicationProperties.getGit(), lock,
-                tenantContextHolder, authenticationContextHolder, requestContextHolder, fileService);
+                tenantContextHolder, authenticationContextHolder, requestContextHolder, fileService, meterRegistry);
     }
 
     /**
@@ -90,7 +93,8 @@ public class BeanConfiguration {
 
         log.info("Creating S3 repository bean");
         var s3Config = applicationProperties.getConfigRepository().getS3();
-        return new S3Repository(s3Client, s3Config.getBucket(), s3Config.getConfigPath(), s3Config.getRules());
+        return new S3Repository(s3Client, s3Config.getBucket(), s3Config.getConfigPath(), s3Config.getRules(),
+            s3Config.getConcurrency());
     }
 
     /**
@@ -178,7 +182,7 @@ public class BeanConfiguration {
         return new ReentrantLock();
     }
 
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public MemoryConfigStorage memoryConfigStorage(List<TenantConfigurationProcessor> tenantConfigurationProcessors,
                                                    List<ConfigurationUpdateHook> configurationUpdateHooks,
                                                    TenantAliasTreeStorage tenantAliasTreeStorage,
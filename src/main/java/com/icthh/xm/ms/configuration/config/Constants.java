@@ -35,5 +35,6 @@ public final class Constants {
     public static final String PUBLIC_KEY_FILE = "/public.cer";
     public static final String REFRESH = "/refresh";
     public static final String RECLONE = "/reclone";
+    public static final String FETCH = "/fetch";
 
 }
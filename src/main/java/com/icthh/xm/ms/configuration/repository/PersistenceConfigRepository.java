@@ -6,7 +6,10 @@ import com.icthh.xm.ms.configuration.domain.ConfigurationItem;
 import com.icthh.xm.ms.configuration.domain.ConfigurationList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface PersistenceConfigRepository {
 
@@ -28,18 +31,61 @@ public interface PersistenceConfigRepository {
 
     Configuration find(String path, ConfigVersion commit);
 
+    /**
+     * Finds configurations changed between the given version and the current one.
+     * Added and modified configurations are returned with content, deleted ones with empty content.
+     *
+     * @param version previously read version
+     * @return changed configurations with the current version, or empty if changes can not be calculated
+     * and all configurations have to be read
+     */
+    default Optional<ConfigurationList> findChanges(ConfigVersion version) {
+        return Optional.empty();
+    }
+
     default ConfigVersion save(Configuration configuration) {
         return saveAll(List.of(configuration), Map.of());
     }
 
     ConfigVersion saveAll(List<Configuration> configurations, Map<String, String> configHashes);
 
+    /**
+     * Saves configurations, repository may persist them later together with other writes.
+     * Conflicts of configuration hashes are reported immediately.
+     *
+     * @return future of the version that contains saved configurations
+     */
+    default CompletableFuture<ConfigVersion> saveAllAsync(List<Configuration> configurations,
+                                                         Map<String, String> configHashes) {
+        return CompletableFuture.completedFuture(saveAll(configurations, configHashes));
+    }
+
     ConfigVersion setRepositoryState(List<Configuration> configurations);
 
+    /**
+     * Replaces all configurations by configurations read from the stream. Repository may consume the stream
+     * lazily, so configurations do not have to be held in memory together.
+     */
+    default ConfigVersion setRepositoryState(Stream<Configuration> configurations) {
+        return setRepositoryState(configurations.toList());
+    }
+
     ConfigVersion deleteAll(List<String> paths);
 
     void recloneConfiguration();
 
+    /**
+     * Fetches remote changes, so following reads see them without fetching on their own.
+     */
+    default void fetch() {
+    }
+
+    /**
+     * Fetches remote changes unless the version is already present locally, so following reads include it.
+     */
+    default void fetch(ConfigVersion version) {
+    }
+
     ConfigVersion getCurrentVersion();
 
     ConfigurationList findAllInTenants(Set<String> folders);
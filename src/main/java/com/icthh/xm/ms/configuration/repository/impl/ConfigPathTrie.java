@@ -0,0 +1,122 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Segment trie over configuration paths, used to resolve ant patterns without scanning every path.
+ * <p>
+ * Pattern lookup walks only the literal segments of the pattern before the first wildcard and returns all
+ * paths under the reached node, so final matching has to be done by the caller (e.g. by {@code AntPathMatcher}).
+ * <p>
+ * Modifications are expected from single writer (under the memory storage update lock),
+ * lookups are lock-free and may run concurrently with modifications.
+ */
+public class ConfigPathTrie {
+
+    private static final char SEPARATOR = '/';
+
+    private final Node root = new Node();
+
+    public void add(String path) {
+        Node node = root;
+        for (String segment : toSegments(path)) {
+            node = node.children.computeIfAbsent(segment, it -> new Node());
+        }
+        node.path = path;
+    }
+
+    public void remove(String path) {
+        List<String> segments = toSegments(path);
+        Deque<Node> visited = new ArrayDeque<>();
+        Node node = root;
+        for (String segment : segments) {
+            visited.push(node);
+            node = node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+        }
+        if (!path.equals(node.path)) {
+            return;
+        }
+        node.path = null;
+
+        // prune empty branches
+        for (int i = segments.size() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = visited.pop();
+            parent.children.remove(segments.get(i), node);
+            node = parent;
+        }
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.path = null;
+    }
+
+    /**
+     * Finds paths that can match the ant pattern.
+     * @param antPattern ant pattern, e.g. {@code /config/tenants/XM/webapp/**}
+     * @return all paths under the literal prefix of the pattern
+     */
+    public List<String> findCandidates(String antPattern) {
+        Node node = root;
+        for (String segment : toSegments(antPattern)) {
+            if (isWildcard(segment)) {
+                break;
+            }
+            node = node.children.get(segment);
+            if (node == null) {
+                return List.of();
+            }
+        }
+        List<String> result = new ArrayList<>();
+        collectPaths(node, result);
+        return result;
+    }
+
+    private static void collectPaths(Node start, List<String> result) {
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(start);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            String path = node.path;
+            if (path != null) {
+                result.add(path);
+            }
+            node.children.values().forEach(toVisit::push);
+        }
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+    }
+
+    private static List<String> toSegments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == SEPARATOR) {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private volatile String path;
+
+        private boolean isEmpty() {
+            return path == null && children.isEmpty();
+        }
+    }
+}
@@ -15,40 +15,61 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
-// immutable
+// immutable, backed by persistent maps, so next state shares unchanged entries with the previous one
 public class ConfigState {
     @Getter
     private final String key;
-    private final Map<String, Configuration> persistedConfigurations;
+    private final PersistentHashMap<String, Configuration> persistedConfigurations;
     @Getter
-    private final Map<String, Configuration> inmemoryConfigurations; // configuration with tenant alias and with features
-    private final Map<String, Configuration> processedConfiguration;
+    private final PersistentHashMap<String, Configuration> inmemoryConfigurations; // configuration with tenant alias and with features
+    private final PersistentHashMap<String, Configuration> processedConfiguration;
     // to identify which processed configuration created by processing of which configuration
-    private final Map<String, Set<String>> producedByFile;
+    private final PersistentHashMap<String, Set<String>> producedByFile;
+    // reverse index of producedByFile: processed configuration path -> path of configuration that produced it
+    private final PersistentHashMap<String, String> sourceByProducedFile;
+    // inmemory configurations overridden by processed ones, updated incrementally from the previous state
+    private final PersistentHashMap<String, Configuration> processedView;
 
     public ConfigState(String key) {
         this.key = key;
-        this.persistedConfigurations = Map.of();
-        this.inmemoryConfigurations = Map.of();
-        this.processedConfiguration = Map.of();
-        this.producedByFile = Map.of();
+        this.persistedConfigurations = PersistentHashMap.empty();
+        this.inmemoryConfigurations = PersistentHashMap.empty();
+        this.processedConfiguration = PersistentHashMap.empty();
+        this.producedByFile = PersistentHashMap.empty();
+        this.sourceByProducedFile = PersistentHashMap.empty();
+        this.processedView = PersistentHashMap.empty();
     }
 
     public ConfigState(IntermediateConfigState state) {
         this.key = state.key;
-        this.persistedConfigurations = Map.copyOf(state.persistedConfigurations);
-        this.inmemoryConfigurations = Map.copyOf(state.inmemoryConfigurations);
-        this.processedConfiguration = Map.copyOf(state.processedConfiguration);
-        this.producedByFile = Map.copyOf(state.producedByFile);
+        this.persistedConfigurations = state.persistedConfigurations.toPersistent();
+        this.inmemoryConfigurations = state.inmemoryConfigurations.toPersistent();
+        this.processedConfiguration = state.processedConfiguration.toPersistent();
+        this.producedByFile = state.producedByFile.toPersistent();
+        this.sourceByProducedFile = state.sourceByProducedFile.toPersistent();
+        this.processedView = updateProcessedView(state);
     }
 
     public Map<String, Configuration> getProcessedConfiguration() {
-        Map<String, Configuration> result = new HashMap<>();
-        result.putAll(inmemoryConfigurations);
-        result.putAll(processedConfiguration);
+        return processedView;
+    }
+
+    private PersistentHashMap<String, Configuration> updateProcessedView(IntermediateConfigState state) {
+        Set<Object> modifiedKeys = new HashSet<>(state.inmemoryConfigurations.getModifiedKeys());
+        modifiedKeys.addAll(state.processedConfiguration.getModifiedKeys());
+
+        PersistentHashMap<String, Configuration> result = state.processedView;
+        for (Object path : modifiedKeys) {
+            Configuration configuration = processedConfiguration.get(path);
+            if (configuration == null) {
+                configuration = inmemoryConfigurations.get(path);
+            }
+            result = configuration == null ? result.minus(path) : result.plus((String) path, configuration);
+        }
         return result;
     }
 
@@ -62,10 +83,12 @@ public class ConfigState {
     public IntermediateConfigState toIntermediateConfigState() {
         return new IntermediateConfigState(
             key,
-            new HashMap<>(persistedConfigurations),
-            new HashMap<>(inmemoryConfigurations),
-            new HashMap<>(processedConfiguration),
-            new HashMap<>(producedByFile)
+            new TransientHashMap<>(persistedConfigurations),
+            new TransientHashMap<>(inmemoryConfigurations),
+            new TransientHashMap<>(processedConfiguration),
+            new TransientHashMap<>(producedByFile),
+            new TransientHashMap<>(sourceByProducedFile),
+            processedView
         );
     }
 
@@ -84,29 +107,43 @@ public class ConfigState {
     @RequiredArgsConstructor
     public static class IntermediateConfigState {
         private final String key;
-        private final Map<String, Configuration> persistedConfigurations;
-        private final Map<String, Configuration> inmemoryConfigurations;
-        private final Map<String, Configuration> processedConfiguration;
-        private final Map<String, Set<String>> producedByFile;
+        private final TransientHashMap<String, Configuration> persistedConfigurations;
+        private final TransientHashMap<String, Configuration> inmemoryConfigurations;
+        private final TransientHashMap<String, Configuration> processedConfiguration;
+        private final TransientHashMap<String, Set<String>> producedByFile;
+        private final TransientHashMap<String, String> sourceByProducedFile;
+        @Getter(AccessLevel.NONE)
+        private final PersistentHashMap<String, Configuration> processedView;
 
         private final Map<String, Configuration> changedFiles = new HashMap<>();
 
         public void updateConfigurations(Map<String, Configuration> updatedConfigs) {
-            persistedConfigurations.putAll(updatedConfigs);
-
-            inmemoryConfigurations.putAll(updatedConfigs);
-
-            persistedConfigurations.entrySet().removeIf(entry -> isBlank(entry.getValue().getContent()));
-            inmemoryConfigurations.entrySet().removeIf(entry -> isBlank(entry.getValue().getContent()));
+            updatedConfigs.forEach((path, configuration) -> {
+                if (isBlank(configuration.getContent())) {
+                    persistedConfigurations.remove(path);
+                    inmemoryConfigurations.remove(path);
+                } else {
+                    persistedConfigurations.put(path, configuration);
+                    inmemoryConfigurations.put(path, configuration);
+                }
+            });
 
             changedFiles.putAll(updatedConfigs);
         }
 
         public void addParentConfigurationByAliases(Map<String, Configuration> parentConfigs) {
-            Map<String, Configuration> configsToApply = new HashMap<>(parentConfigs);
-            configsToApply.keySet().removeAll(persistedConfigurations.keySet()); // "override" parent configurations
-            inmemoryConfigurations.putAll(configsToApply); // put parent configurations
-            inmemoryConfigurations.entrySet().removeIf(entry -> isBlank(entry.getValue().getContent()));
+            Map<String, Configuration> configsToApply = new HashMap<>();
+            parentConfigs.forEach((path, configuration) -> {
+                if (persistedConfigurations.containsKey(path)) {
+                    return; // "override" parent configurations
+                }
+                configsToApply.put(path, configuration);
+                if (isBlank(configuration.getContent())) {
+                    inmemoryConfigurations.remove(path);
+                } else {
+                    inmemoryConfigurations.put(path, configuration); // put parent configurations
+                }
+            });
 
             changedFiles.putAll(configsToApply);
         }
@@ -117,14 +154,18 @@ public class ConfigState {
                 changedFiles.putAll(produced.stream().filter(Objects::nonNull)
                     .collect(toMap(identity(), processedConfiguration::get, (a, b) -> b)));
                 produced.forEach(processedConfiguration::remove);
+                produced.forEach(producedPath -> sourceByProducedFile.remove(producedPath, path));
                 producedByFile.remove(path);
             });
         }
 
         public void addProcessedConfiguration(Configuration configuration, Map<String, Configuration> processedByConfig) {
             if (!processedByConfig.isEmpty()) {
-                Set<String> produced = producedByFile.computeIfAbsent(configuration.getPath(), it -> new HashSet<>());
+                // sets are shared with previous states, so copy on write
+                Set<String> produced = new HashSet<>(producedByFile.getOrDefault(configuration.getPath(), Set.of()));
                 produced.addAll(processedByConfig.keySet());
+                producedByFile.put(configuration.getPath(), Set.copyOf(produced));
+                processedByConfig.keySet().forEach(path -> sourceByProducedFile.put(path, configuration.getPath()));
                 processedConfiguration.putAll(processedByConfig);
                 changedFiles.putAll(processedByConfig);
             }
@@ -134,10 +175,7 @@ public class ConfigState {
             if (!processedConfiguration.containsKey(path)) {
                 return Optional.empty();
             }
-            return producedByFile.entrySet().stream()
-                .filter(e -> e.getValue().contains(path))
-                .map(Map.Entry::getKey)
-                .findFirst();
+            return Optional.ofNullable(sourceByProducedFile.get(path));
         }
     }
 
@@ -5,12 +5,20 @@ import com.icthh.xm.ms.configuration.domain.ConfigVersion;
 import com.icthh.xm.ms.configuration.domain.ConfigurationItem;
 import com.icthh.xm.ms.configuration.domain.ConfigurationList;
 import com.icthh.xm.ms.configuration.repository.PersistenceConfigRepository;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.icthh.xm.ms.configuration.repository.PersistenceConfigRepositoryStrategy;
 import lombok.extern.slf4j.Slf4j;
@@ -82,6 +90,15 @@ public class DynamicConfigRepository implements PersistenceConfigRepository {
         return mergeConfigurationLists(allConfigurations, version);
     }
 
+    @Override
+    public Optional<ConfigurationList> findChanges(ConfigVersion version) {
+        // changes of one repository can be overridden by another one, so merge is possible only on full read
+        if (repositories.size() != 1) {
+            return Optional.empty();
+        }
+        return lowestPriorityRepository.findChanges(version);
+    }
+
     @Override
     public ConfigurationItem find(String path) {
         return getRepositoryForPath(path).find(path);
@@ -110,6 +127,19 @@ public class DynamicConfigRepository implements PersistenceConfigRepository {
         return version;
     }
 
+    @Override
+    public CompletableFuture<ConfigVersion> saveAllAsync(List<Configuration> configurations,
+                                                         Map<String, String> configHashes) {
+        var repositoriesToUpdate = configurations.stream()
+                .map(config -> getRepositoryForPath(config.getPath()))
+                .distinct()
+                .toList();
+        if (repositoriesToUpdate.size() != 1) {
+            return CompletableFuture.completedFuture(saveAll(configurations, configHashes));
+        }
+        return repositoriesToUpdate.getFirst().saveAllAsync(configurations, configHashes);
+    }
+
     @Override
     public ConfigVersion setRepositoryState(List<Configuration> configurations) {
         // Group configurations by repository
@@ -123,6 +153,35 @@ public class DynamicConfigRepository implements PersistenceConfigRepository {
         return version;
     }
 
+    /**
+     * Configurations of the highest priority repository are passed to it lazily, as they are read from the stream.
+     * Configurations of other repositories are collected while the stream is consumed and are set afterwards.
+     */
+    @Override
+    public ConfigVersion setRepositoryState(Stream<Configuration> configurations) {
+        var streamingRepository = repositories.getFirst();
+        var configsByRepo = new LinkedHashMap<PersistenceConfigRepository, List<Configuration>>();
+        var routed = configurations.filter(config -> {
+            var repository = getRepositoryForPath(config.getPath());
+            if (repository == streamingRepository) {
+                return true;
+            }
+            configsByRepo.computeIfAbsent(repository, key -> new ArrayList<>()).add(config);
+            return false;
+        }).iterator();
+
+        var version = ConfigVersion.UNDEFINED_VERSION;
+        // as for list, repository without configurations is not changed
+        if (routed.hasNext()) {
+            var streamingConfigs = Spliterators.spliteratorUnknownSize(routed, Spliterator.ORDERED);
+            version = streamingRepository.setRepositoryState(StreamSupport.stream(streamingConfigs, false));
+        }
+        for (var entry : configsByRepo.entrySet()) {
+            version = entry.getKey().setRepositoryState(entry.getValue());
+        }
+        return version;
+    }
+
     @Override
     public ConfigVersion deleteAll(List<String> paths) {
         // Group paths by repository
@@ -141,6 +200,16 @@ public class DynamicConfigRepository implements PersistenceConfigRepository {
         repositories.forEach(PersistenceConfigRepository::recloneConfiguration);
     }
 
+    @Override
+    public void fetch() {
+        repositories.forEach(PersistenceConfigRepository::fetch);
+    }
+
+    @Override
+    public void fetch(ConfigVersion version) {
+        lowestPriorityRepository.fetch(version);
+    }
+
     @Override
     public ConfigVersion getCurrentVersion() {
         return lowestPriorityRepository.getCurrentVersion();
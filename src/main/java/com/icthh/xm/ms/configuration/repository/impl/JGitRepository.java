@@ -1,5 +1,7 @@
 package com.icthh.xm.ms.configuration.repository.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.icthh.xm.commons.config.domain.Configuration;
 import com.icthh.xm.commons.request.XmRequestContextHolder;
 import com.icthh.xm.commons.security.XmAuthenticationContextHolder;
@@ -15,6 +17,9 @@ import com.icthh.xm.ms.configuration.repository.PersistenceConfigRepositoryStrat
 import com.icthh.xm.ms.configuration.service.ConcurrentConfigModificationException;
 import com.icthh.xm.ms.configuration.service.FileService;
 import com.icthh.xm.ms.configuration.utils.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +30,9 @@ import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.GitCommand;
 import org.eclipse.jgit.api.PullCommand;
+import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.PushCommand;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
 import org.eclipse.jgit.api.RmCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.StatusCommand;
@@ -34,21 +41,33 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.CommitBuilder;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.FS;
 import org.springframework.util.FileSystemUtils;
 
@@ -58,12 +77,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 
 import static com.icthh.xm.ms.configuration.config.Constants.TENANT_PREFIX;
@@ -74,6 +104,7 @@ import static com.icthh.xm.ms.configuration.utils.RequestContextUtils.getRequest
 import static com.icthh.xm.ms.configuration.utils.RequestContextUtils.isRequestSourceNameExist;
 import static java.io.File.separator;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
 import static org.apache.commons.io.FileUtils.listFiles;
@@ -98,6 +129,9 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
     public static final String REFS_HEADS = "refs/heads/";
     public static final String GIT_REPOSITORY = "git repository";
     private static final int GIT_PRIORITY = Short.MAX_VALUE;
+    private static final String CONFIG_ROOT = "/config";
+    private static final int IN_MEMORY_COMMIT_ATTEMPTS = 3;
+    private static final String HISTORICAL_CONTENTS_CACHE = "gitHistoricalContents";
 
     private final GitProperties gitProperties;
 
@@ -105,6 +139,11 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
 
     private volatile File rootDirectory;
 
+    // long-lived handle of repository in root directory, reopened only on reclone
+    private volatile Git gitHandle;
+    // lock-free readers use the handle under read lock, so reclone closes it only after they are finished
+    private final ReadWriteLock handleLock = new ReentrantReadWriteLock();
+
     private final TenantContextHolder tenantContextHolder;
 
     private final XmAuthenticationContextHolder authenticationContextHolder;
@@ -113,22 +152,69 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
 
     private final FileService fileService;
 
+    // commits reachable from the last commit read completely by findAll or findChanges, read without lock
+    private final Set<String> knownCommits = ConcurrentHashMap.newKeySet();
+    private volatile ObjectId indexedHead;
+    private final Cache<String, Boolean> missingCommits;
+    // content of configurations in historical commits, read without lock
+    private final Cache<VersionedPath, String> historicalContents;
+
+    // writes waiting for group commit, guarded by lock
+    private GroupCommit pendingGroupCommit;
+    private final ScheduledExecutorService groupCommitExecutor;
+    private final ScheduledExecutorService backgroundFetchExecutor;
+
+    // configuration path -> last read blob, to skip loading of unchanged blobs from object database
+    private final Map<String, BlobContent> blobContents = new ConcurrentHashMap<>();
+
     public JGitRepository(GitProperties gitProperties,
                           Lock lock,
                           TenantContextHolder tenantContextHolder,
                           XmAuthenticationContextHolder authenticationContextHolder,
                           XmRequestContextHolder requestContextHolder,
                           FileService fileService) {
+        this(gitProperties, lock, tenantContextHolder, authenticationContextHolder, requestContextHolder, fileService,
+            new SimpleMeterRegistry());
+    }
+
+    public JGitRepository(GitProperties gitProperties,
+                          Lock lock,
+                          TenantContextHolder tenantContextHolder,
+                          XmAuthenticationContextHolder authenticationContextHolder,
+                          XmRequestContextHolder requestContextHolder,
+                          FileService fileService,
+                          MeterRegistry meterRegistry) {
         this.gitProperties = gitProperties;
         this.lock = lock;
         this.requestContextHolder = requestContextHolder;
         this.tenantContextHolder = tenantContextHolder;
         this.authenticationContextHolder = authenticationContextHolder;
         this.fileService = fileService;
+        this.missingCommits = CacheBuilder.newBuilder()
+            .expireAfterWrite(gitProperties.getMissingCommitCacheTtlSeconds(), TimeUnit.SECONDS)
+            .build();
+        this.historicalContents = CacheBuilder.newBuilder()
+            .maximumWeight(gitProperties.getHistoricalContentCacheMaxBytes())
+            .weigher((VersionedPath key, String content) -> (key.path().length() + content.length()) * Character.BYTES)
+            .recordStats()
+            .build();
+        GuavaCacheMetrics.monitor(meterRegistry, historicalContents, HISTORICAL_CONTENTS_CACHE);
+        this.groupCommitExecutor = isGroupCommitEnabled() ? Executors.newSingleThreadScheduledExecutor(
+            task -> Thread.ofPlatform().name("git-group-commit").daemon().unstarted(task)) : null;
 
         log.info("Git branch to use {}", gitProperties.getBranchName());
         cloneRepository();
         log.info("Git working directory {}", rootDirectory.getAbsolutePath());
+
+        if (gitProperties.getBackgroundFetchIntervalSeconds() > 0 && !isBackgroundFetchEnabled()) {
+            log.warn("Background fetch is disabled, repository is recloned on every update");
+        }
+        this.backgroundFetchExecutor = isBackgroundFetchEnabled() ? Executors.newSingleThreadScheduledExecutor(
+            task -> Thread.ofPlatform().name("git-background-fetch").daemon().unstarted(task)) : null;
+        if (backgroundFetchExecutor != null) {
+            int interval = gitProperties.getBackgroundFetchIntervalSeconds();
+            backgroundFetchExecutor.scheduleWithFixedDelay(this::backgroundFetch, interval, interval, TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -147,15 +233,50 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         return true;
     }
 
+    /**
+     * Commit is known only when it was returned by the full read, fetched but not read commits are not known.
+     */
     @Override
     public boolean hasVersion(ConfigVersion version) {
+        String commit = version.getMainVersion();
+        if (knownCommits.contains(commit)) {
+            return true;
+        }
+        if (missingCommits.getIfPresent(commit) != null) {
+            log.debug("Commit {} was not found recently", commit);
+            return false;
+        }
+
         log.info("[{}] Search if commit present: {}", getRequestSourceTypeLogName(requestContextHolder), version);
-        return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> containsGitCommit(version.getMainVersion()));
+        // abbreviated commit id or branch name is resolved to full id
+        return resolveGitCommit(commit).map(knownCommits::contains).orElse(false);
+    }
+
+    private boolean isPresent(String commit) {
+        return knownCommits.contains(commit) || resolveGitCommit(commit).isPresent();
+    }
+
+    private Optional<String> resolveGitCommit(String commit) {
+        if (missingCommits.getIfPresent(commit) != null) {
+            return Optional.empty();
+        }
+        Optional<String> found;
+        try {
+            found = containsGitCommit(commit);
+        } catch (IllegalStateException e) {
+            // only commit that is surely absent is cached as missing
+            log.warn("Could not look up commit {}", commit, e);
+            return Optional.empty();
+        }
+        if (found.isEmpty()) {
+            missingCommits.put(commit, Boolean.TRUE);
+        }
+        return found;
     }
 
     @Override
     public ConfigurationList findAll() {
-        return readFromDirectory("/config");
+        return readFromDirectory(CONFIG_ROOT);
     }
 
     @Override
@@ -180,19 +301,46 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
     public ConfigurationItem find(String path) {
         log.info("[{}] Find configuration by path: {}", getRequestSourceTypeLogName(requestContextHolder), path);
         return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
-            String commit = pull();
-            String content = fileService.readFileToString(getAbsolutePath(path));
+            String commit = pullForRead();
+            String content = isBare()
+                ? executeGitAction("blob", git -> getBlobContent(git.getRepository(), commit, toRepositoryPath(path)))
+                : fileService.readFileToString(getAbsolutePath(path));
             return new ConfigurationItem(new ConfigVersion(commit), new Configuration(path, content));
         });
     }
 
+    @Override
+    public Optional<ConfigurationList> findChanges(ConfigVersion version) {
+        if (version == null || UNDEFINED_COMMIT.equals(version.getMainVersion())) {
+            return Optional.empty();
+        }
+        log.info("[{}] Find configurations changed since commit {}", getRequestSourceTypeLogName(requestContextHolder), version);
+        return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
+            String commit = pullForRead();
+            Optional<List<Configuration>> changes = executeGitAction("diff",
+                git -> readChanges(git.getRepository(), version.getMainVersion(), commit));
+            changes.ifPresent(it -> {
+                log.info("Found {} configurations changed from {} to {}", it.size(), version, commit);
+                indexCommits(commit);
+            });
+            return changes.map(it -> new ConfigurationList(new ConfigVersion(commit), it));
+        });
+    }
+
     @Override
     public Configuration find(String path, ConfigVersion version) {
         log.info("[{}] Find configuration by path: {} and version: {}",
             getRequestSourceTypeLogName(requestContextHolder), path, version);
 
+        // only full commit id is immutable, branch names and abbreviated ids are resolved in repository
+        VersionedPath key = ObjectId.isId(version.getMainVersion()) ? new VersionedPath(version.getMainVersion(), path) : null;
+        String cachedContent = key == null ? null : historicalContents.getIfPresent(key);
+        if (cachedContent != null) {
+            return new Configuration(path, cachedContent);
+        }
+
         return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
-            if (!hasVersion(version)) {
+            if (!isPresent(version.getMainVersion())) {
                 pull();
             }
 
@@ -200,13 +348,68 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
                 String normalizedPath = path.startsWith("/") ? path.substring(1) : path;
                 return getBlobContent(git.getRepository(), version.getMainVersion(), normalizedPath);
             });
+            if (key != null && content != null) {
+                historicalContents.put(key, content);
+            }
             return new Configuration(path, content);
         });
     }
 
     @Override
     public void recloneConfiguration() {
-        cloneRepository();
+        runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
+            // reclone replaces working tree, so writes waiting for group commit go first
+            commitPendingGroup();
+            cloneRepository();
+        });
+    }
+
+    @Override
+    public void fetch() {
+        log.info("[{}] Fetch changes of git repository", getRequestSourceTypeLogName(requestContextHolder));
+        runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, this::pull);
+    }
+
+    @Override
+    public void fetch(ConfigVersion version) {
+        // without background fetch every read pulls anyway
+        if (!isBackgroundFetchEnabled() || isPresent(version.getMainVersion())) {
+            return;
+        }
+        log.info("[{}] Fetch changes of git repository for commit {}", getRequestSourceTypeLogName(requestContextHolder),
+            version);
+        runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, this::pull);
+    }
+
+    private boolean isBackgroundFetchEnabled() {
+        // reclone on update would reclone on every round and forget all known commits
+        return gitProperties.getBackgroundFetchIntervalSeconds() > 0 && !gitProperties.getCloneRepositoryOnUpdate();
+    }
+
+    private void backgroundFetch() {
+        // the round is skipped if the repository is busy, writes pull before commit anyway
+        if (!lock.tryLock()) {
+            log.debug("Skip background fetch, git repository is locked");
+            return;
+        }
+        try {
+            pull();
+        } catch (Exception e) {
+            log.warn("Background fetch of git repository failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pulls before read, unless changes are fetched in background: then the read uses already fetched state.
+     * Lock must be held.
+     */
+    private String pullForRead() {
+        if (isBackgroundFetchEnabled()) {
+            return executeGitAction("getCurrentVersion", this::findLastCommit);
+        }
+        return pull();
     }
 
     @Override
@@ -217,16 +420,85 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         if (!paths.isEmpty()) {
             log.info("[{}] Save configurations to git by paths {}",
                 getRequestSourceTypeLogName(requestContextHolder), paths);
-            return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"),
-                () -> configurations.forEach(it -> save(it, hashes.get(it.getPath()))));
+            if (isBare()) {
+                return commitInMemory(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"), List.of(), configurations, hashes);
+            }
+            return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"), paths,
+                () -> save(configurations, hashes));
         }
         log.info("[{}] configuration list is empty, nothing to save", getRequestSourceTypeLogName(requestContextHolder));
         return getCurrentVersion();
     }
 
+    /**
+     * In group commit mode writes configurations to the working tree immediately and commits them
+     * together with other writes received during the group commit window.
+     */
+    @Override
+    public CompletableFuture<ConfigVersion> saveAllAsync(List<Configuration> configurations,
+                                                         Map<String, String> configHashes) {
+        if (!isGroupCommitEnabled() || configurations.isEmpty()) {
+            return CompletableFuture.completedFuture(saveAll(configurations, configHashes));
+        }
+
+        Map<String, String> hashes = configHashes == null ? Map.of() : configHashes;
+        log.info("[{}] Save configurations to git by paths {} with group commit",
+            getRequestSourceTypeLogName(requestContextHolder), configurations.stream().map(Configuration::getPath).toList());
+        return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
+            if (pendingGroupCommit == null) {
+                pull();
+                pendingGroupCommit = new GroupCommit();
+                groupCommitExecutor.schedule(this::flushGroupCommit, gitProperties.getGroupCommitWindowMillis(), MILLISECONDS);
+            }
+            // hashes are checked against working tree, that already contains previous writes of the group
+            configurations.forEach(it -> assertConfigHash(it, hashes.get(it.getPath())));
+            // paths are recorded before write, so even partially written configurations are committed or reset
+            configurations.forEach(it -> pendingGroupCommit.paths.add(it.getPath()));
+            pendingGroupCommit.messages.add(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"));
+            configurations.forEach(it -> save(it, null));
+            return pendingGroupCommit.version;
+        });
+    }
+
+    private boolean isGroupCommitEnabled() {
+        // reclone on update would drop not committed writes from the working tree
+        return gitProperties.getGroupCommitWindowMillis() > 0 && !gitProperties.getCloneRepositoryOnUpdate() && !isBare();
+    }
+
+    private void flushGroupCommit() {
+        try {
+            runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, this::commitPendingGroup);
+        } catch (Exception e) {
+            log.warn("Group commit failed to acquire lock, retry later", e);
+            groupCommitExecutor.schedule(this::flushGroupCommit, gitProperties.getGroupCommitWindowMillis(), MILLISECONDS);
+        }
+    }
+
+    // lock must be held
+    private void commitPendingGroup() {
+        GroupCommit group = pendingGroupCommit;
+        if (group == null) {
+            return;
+        }
+        pendingGroupCommit = null;
+        try {
+            // writes of the group were checked against state fetched at the beginning of the window
+            String commit = commitAndPush(String.join("\n", group.messages), group.paths, true);
+            log.info("Group commit {} persisted {} writes", commit, group.messages.size());
+            group.version.complete(new ConfigVersion(commit));
+        } catch (Exception e) {
+            log.error("Group commit of {} writes failed", group.messages.size(), e);
+            group.version.completeExceptionally(e);
+        }
+    }
+
     @Override
     public ConfigVersion setRepositoryState(List<Configuration> configurations) {
-        return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"),
+        if (isBare()) {
+            return commitInMemory(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"), List.of(CONFIG_ROOT),
+                configurations, Map.of());
+        }
+        return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_UPDATE_TPL, "multiple paths"), List.of(CONFIG_ROOT),
             () -> {
                 deleteExistingFile("/config");
                 configurations.forEach(this::writeConfiguration);
@@ -238,7 +510,10 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
     public ConfigVersion deleteAll(List<String> paths) {
         log.info("[{}] Delete configurations from git by paths {}",
             getRequestSourceTypeLogName(requestContextHolder), paths);
-        return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_DELETE_TPL, paths.size()),
+        if (isBare()) {
+            return commitInMemory(getCommitMsg(GIT_COMMIT_MSG_DELETE_TPL, paths.size()), paths, List.of(), Map.of());
+        }
+        return runWithPullCommit(getCommitMsg(GIT_COMMIT_MSG_DELETE_TPL, paths.size()), paths,
             () -> paths.forEach(this::deleteExistingFile));
     }
 
@@ -260,9 +535,13 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
             this.rootDirectory = repositoryFolder;
         }
 
-        File gitDir = getGitDir(getGitPath(repositoryFolder.getAbsolutePath()));
+        File gitDir = getGitDir(repositoryFolder);
         if (repositoryFolder.exists() && isGitRepository(gitDir, FS.DETECTED)) {
             log.warn("Folder {} already is git folder", repositoryFolder.getAbsolutePath());
+            if (gitHandle == null) {
+                gitHandle = openGit(repositoryFolder);
+            }
+            resetCommitCaches();
             return;
         }
 
@@ -272,7 +551,7 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         }
         repositoryFolder.deleteOnExit();
 
-        executeLoggedAction("cloneRepository", () -> {
+        Git clonedGit = executeLoggedAction("cloneRepository", () -> {
             CloneCommand cloneCommand = Git.cloneRepository().setURI(gitProperties.getUri())
                                                          .setDirectory(repositoryFolder);
             cloneCommand = setAuthorizationConfig(cloneCommand);
@@ -281,33 +560,72 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
             cloneCommand.setCloneSubmodules(false);
             cloneCommand.setBranch(gitProperties.getBranchName());
             cloneCommand.setProgressMonitor(NullProgressMonitor.INSTANCE);
+            cloneCommand.setBare(isBare());
             if (gitProperties.getDepth() > 0) {
                 cloneCommand.setDepth(gitProperties.getDepth());
             }
-            cloneCommand.call().close();
-            executeGitAction("checkout", this::checkout);
-            return null;
+            Git git = cloneCommand.call();
+            disablePreloadIndexAndFileMode(git);
+            if (!isBare()) {
+                executeLoggedAction("checkout", () -> checkout(git));
+            }
+            return git;
         });
 
-        this.rootDirectory = repositoryFolder;
-        if (oldDirectory != null) {
-            deleteRecursively(oldDirectory);
+        handleLock.writeLock().lock();
+        try {
+            Git oldGit = this.gitHandle;
+            this.gitHandle = clonedGit;
+            this.rootDirectory = repositoryFolder;
+            resetCommitCaches();
+            if (oldGit != null) {
+                oldGit.close();
+            }
+            if (oldDirectory != null) {
+                deleteRecursively(oldDirectory);
+            }
+        } finally {
+            handleLock.writeLock().unlock();
         }
-        if (log.isInfoEnabled()) {
+        if (log.isInfoEnabled() && !isBare()) {
             log.info("Count of config files {}", countOfFilesInDirectoryRecursively(rootDirectory.getAbsolutePath() + "/config"));
         }
     }
 
+    // commits of the previous clone may be absent in the new one, e.g. after force push
+    private void resetCommitCaches() {
+        knownCommits.clear();
+        indexedHead = null;
+        missingCommits.invalidateAll();
+    }
+
     @SuppressWarnings("unused")
     public void destroy() {
         log.info("Delete git directory: {}", rootDirectory);
+        if (groupCommitExecutor != null) {
+            groupCommitExecutor.shutdownNow();
+        }
+        if (backgroundFetchExecutor != null) {
+            backgroundFetchExecutor.shutdownNow();
+        }
+        if (gitHandle != null) {
+            gitHandle.close();
+        }
         deleteRecursively(rootDirectory);
     }
 
     private ConfigurationList readConfigsFromDirectories(List<String> relativeDirectoryPaths) {
         log.info("[{}] Find configurations in directory {}", getRequestSourceTypeLogName(requestContextHolder), relativeDirectoryPaths);
         return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
-            String commit = pull();
+            String commit = pullForRead();
+            if (relativeDirectoryPaths.equals(List.of(CONFIG_ROOT))) {
+                indexCommits(commit);
+            }
+            if (Boolean.TRUE.equals(gitProperties.getReadFromObjectDatabase()) || isBare()) {
+                List<Configuration> configurations = executeGitAction("readObjectDatabase",
+                    git -> readFromObjectDatabase(git.getRepository(), relativeDirectoryPaths));
+                return new ConfigurationList(new ConfigVersion(commit), configurations);
+            }
             List<Configuration> configurations = new ArrayList<>();
             relativeDirectoryPaths.stream().map(this::getAbsolutePath)
                 .forEach(directory -> configurations.addAll(internalReadFileSystemFolder(new File(directory))));
@@ -315,6 +633,103 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         });
     }
 
+    /**
+     * Reads configurations from the HEAD commit tree with one tree walk, without touching the working tree.
+     * Content of blobs that did not change since the previous read is taken from memory.
+     */
+    @SneakyThrows
+    private List<Configuration> readFromObjectDatabase(Repository repository, List<String> relativeDirectoryPaths) {
+        List<Configuration> configurations = new ArrayList<>();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            log.warn("HEAD commit not found in repository {}", repository.getDirectory());
+            return configurations;
+        }
+
+        Set<String> readPaths = new HashSet<>();
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(revWalk.parseCommit(head).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(toTreePaths(relativeDirectoryPaths)));
+            ObjectReader reader = treeWalk.getObjectReader();
+            while (treeWalk.next()) {
+                if (treeWalk.getFileMode(0).getObjectType() != Constants.OBJ_BLOB) {
+                    continue;
+                }
+                String path = "/" + treeWalk.getPathString();
+                ObjectId blobId = treeWalk.getObjectId(0);
+                BlobContent blob = blobContents.get(path);
+                if (blob == null || !blob.id().equals(blobId)) {
+                    byte[] content = reader.open(blobId, Constants.OBJ_BLOB).getBytes();
+                    blob = new BlobContent(blobId, fileService.writeAsString(path, content));
+                    blobContents.put(path, blob);
+                }
+                readPaths.add(path);
+                configurations.add(new Configuration(path, blob.content()));
+            }
+        }
+
+        if (relativeDirectoryPaths.contains(CONFIG_ROOT)) {
+            blobContents.keySet().retainAll(readPaths);
+        }
+        return configurations;
+    }
+
+    /**
+     * Reads configurations changed between two commits, empty if the old commit is not available
+     * in the local history (shallow clone) or is not an ancestor of the new one (force push).
+     */
+    @SneakyThrows
+    private Optional<List<Configuration>> readChanges(Repository repository, String fromCommit, String toCommit) {
+        ObjectId fromId = ObjectId.isId(fromCommit) ? ObjectId.fromString(fromCommit) : null;
+        ObjectId toId = repository.resolve(toCommit);
+        if (fromId == null || toId == null) {
+            return Optional.empty();
+        }
+
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            RevCommit from;
+            try {
+                from = revWalk.parseCommit(fromId);
+            } catch (MissingObjectException e) {
+                log.info("Commit {} is not present in local history", fromCommit);
+                return Optional.empty();
+            }
+            RevCommit to = revWalk.parseCommit(toId);
+            if (!revWalk.isMergedInto(from, to)) {
+                log.info("Commit {} is not an ancestor of {}", fromCommit, toCommit);
+                return Optional.empty();
+            }
+
+            treeWalk.addTree(from.getTree());
+            treeWalk.addTree(to.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(CONFIG_ROOT.substring(1)), TreeFilter.ANY_DIFF));
+            ObjectReader reader = treeWalk.getObjectReader();
+            List<Configuration> changes = new ArrayList<>();
+            while (treeWalk.next()) {
+                String path = "/" + treeWalk.getPathString();
+                if (treeWalk.getFileMode(1).getObjectType() != Constants.OBJ_BLOB) {
+                    changes.add(new Configuration(path, "")); // deleted
+                } else {
+                    byte[] content = reader.open(treeWalk.getObjectId(1), Constants.OBJ_BLOB).getBytes();
+                    changes.add(new Configuration(path, fileService.writeAsString(path, content)));
+                }
+            }
+            return Optional.of(changes);
+        }
+    }
+
+    private static String toRepositoryPath(String path) {
+        return StringUtils.removeStart(StringUtils.replaceChars(Path.of("/", path).normalize().toString(), File.separator, "/"), "/");
+    }
+
+    private static List<String> toTreePaths(List<String> relativeDirectoryPaths) {
+        return relativeDirectoryPaths.stream()
+            .map(path -> StringUtils.strip(StringUtils.replaceChars(path, File.separator, "/"), "/"))
+            .collect(toList());
+    }
+
     private List<Configuration> internalReadFileSystemFolder(File directory) {
         if (!directory.exists()) {
             log.warn("Directory {} does not exist", directory);
@@ -366,6 +781,12 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         }
     }
 
+    private void save(List<Configuration> configurations, Map<String, String> configHashes) {
+        // all hashes are checked before the first write, so conflict does not leave part of configurations written
+        configurations.forEach(it -> assertConfigHash(it, configHashes.get(it.getPath())));
+        configurations.forEach(it -> save(it, null));
+    }
+
     private void save(Configuration configuration, String oldConfigHash) {
         assertConfigHash(configuration, oldConfigHash);
         if (StringUtils.isEmpty(configuration.getContent())) {
@@ -451,11 +872,227 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         return new File(gitPath);
     }
 
+    private File getGitDir(File repositoryFolder) {
+        return isBare() ? repositoryFolder : getGitDir(getGitPath(repositoryFolder.getAbsolutePath()));
+    }
+
+    private boolean isBare() {
+        return Boolean.TRUE.equals(gitProperties.getBare());
+    }
+
     protected String pull() {
+        // pull works on clean working tree, so pending group commit goes first
+        commitPendingGroup();
         if (gitProperties.getCloneRepositoryOnUpdate()) {
             cloneRepository();
         }
 
+        String commit = isBare() ? fetchBranch() : fetchAndMerge();
+        missingCommits.invalidateAll();
+        return commit;
+    }
+
+    /**
+     * Fetches the branch and moves local branch to the fetched commit, used instead of pull in bare repository.
+     */
+    private String fetchBranch() {
+        return executeGitAction("fetch", this::fetchBranch);
+    }
+
+    @SneakyThrows
+    private String fetchBranch(Git git) {
+        String branchName = gitProperties.getBranchName();
+        String remoteRef = Constants.R_REMOTES + DEFAULT_REMOTE_NAME + "/" + branchName;
+        log.info("Start to fetch branch: {}", branchName);
+        FetchCommand fetch = setAuthorizationConfig(git.fetch());
+        fetch.setRefSpecs(new RefSpec("+" + REFS_HEADS + branchName + ":" + remoteRef));
+        fetch.setProgressMonitor(NullProgressMonitor.INSTANCE);
+        fetch.call();
+
+        ObjectId remoteHead = git.getRepository().resolve(remoteRef);
+        if (remoteHead == null) {
+            throw new IllegalStateException("Branch " + branchName + " not found in remote repository");
+        }
+        updateBranch(git.getRepository(), remoteHead);
+        return remoteHead.getName();
+    }
+
+    @SneakyThrows
+    private void updateBranch(Repository repository, ObjectId commit) {
+        RefUpdate refUpdate = repository.updateRef(REFS_HEADS + gitProperties.getBranchName());
+        refUpdate.setNewObjectId(commit);
+        refUpdate.setForceUpdate(true);
+        RefUpdate.Result result = refUpdate.update();
+        if (result == RefUpdate.Result.LOCK_FAILURE || result == RefUpdate.Result.IO_FAILURE
+            || result == RefUpdate.Result.REJECTED) {
+            throw new IllegalStateException("Could not update branch to " + commit.getName() + ": " + result);
+        }
+    }
+
+    /**
+     * Builds the commit on top of the fetched branch without working tree and index: blobs and trees are written
+     * directly to the object database, only trees on the paths of changed configurations are rewritten.
+     * If push is rejected because the branch was changed meanwhile, the commit is rebuilt on the new branch head.
+     *
+     * @param deletedPaths   configuration files or directories to delete
+     * @param configurations configurations to write, configuration with empty content is deleted
+     */
+    private ConfigVersion commitInMemory(String commitMsg, List<String> deletedPaths, List<Configuration> configurations,
+                                         Map<String, String> configHashes) {
+        return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
+            for (int attempt = 1; ; attempt++) {
+                pull();
+                Optional<String> commit = executeGitAction("commitInMemory",
+                    git -> buildAndPushCommit(git, commitMsg, deletedPaths, configurations, configHashes));
+                if (commit.isPresent()) {
+                    return new ConfigVersion(commit.get());
+                }
+                if (attempt >= IN_MEMORY_COMMIT_ATTEMPTS) {
+                    throw new IllegalStateException("Push rejected " + attempt + " times, commit is not saved");
+                }
+                log.info("Push rejected, rebuild commit on top of fetched branch");
+            }
+        });
+    }
+
+    @SneakyThrows
+    private Optional<String> buildAndPushCommit(Git git, String commitMsg, List<String> deletedPaths,
+                                                List<Configuration> configurations, Map<String, String> configHashes) {
+        Repository repository = git.getRepository();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        try (RevWalk revWalk = new RevWalk(repository);
+             ObjectReader reader = repository.newObjectReader();
+             ObjectInserter inserter = repository.newObjectInserter()) {
+            RevCommit parent = head == null ? null : revWalk.parseCommit(head);
+            ObjectId parentTree = parent == null ? null : parent.getTree();
+
+            // relative path -> blob, null to delete file or directory
+            Map<String, ObjectId> edits = new LinkedHashMap<>();
+            deletedPaths.forEach(path -> edits.put(toRepositoryPath(path), null));
+            for (Configuration configuration : configurations) {
+                String path = toRepositoryPath(configuration.getPath());
+                assertConfigHash(configuration, configHashes.get(configuration.getPath()), reader, parentTree);
+                edits.put(path, StringUtils.isEmpty(configuration.getContent()) ? null
+                    : inserter.insert(Constants.OBJ_BLOB, configuration.getContent().getBytes(UTF_8)));
+            }
+
+            ObjectId tree = editTree(reader, inserter, parentTree, edits);
+            if (tree == null) {
+                tree = inserter.insert(new TreeFormatter());
+            }
+            if (parent != null && tree.equals(parentTree)) {
+                log.info("Skip commit to git as no file changed after performing: {}, lastCommit: {}", commitMsg, parent.getName());
+                return Optional.of(parent.getName());
+            }
+
+            PersonIdent ident = new PersonIdent(repository);
+            CommitBuilder commitBuilder = new CommitBuilder();
+            commitBuilder.setTreeId(tree);
+            if (parent != null) {
+                commitBuilder.setParentId(parent);
+            }
+            commitBuilder.setAuthor(ident);
+            commitBuilder.setCommitter(ident);
+            commitBuilder.setMessage(commitMsg);
+            ObjectId commit = inserter.insert(commitBuilder);
+            inserter.flush();
+
+            // commit is pushed by id, local branch is moved only to a commit accepted by remote
+            PushCommand push = setAuthorizationConfig(git.push());
+            push.setProgressMonitor(NullProgressMonitor.INSTANCE);
+            push.setRefSpecs(new RefSpec(commit.getName() + ":" + REFS_HEADS + gitProperties.getBranchName()));
+            for (PushResult pushResult : push.call()) {
+                for (RemoteRefUpdate update : pushResult.getRemoteUpdates()) {
+                    if (update.getStatus() != RemoteRefUpdate.Status.OK && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                        log.warn("Push of commit {} rejected: {} {}", commit.getName(), update.getStatus(), update.getMessage());
+                        return Optional.empty();
+                    }
+                }
+            }
+            updateBranch(repository, commit);
+            return Optional.of(commit.getName());
+        }
+    }
+
+    /**
+     * Writes a copy of the tree with applied edits, subtrees without edits are reused as is.
+     *
+     * @param treeId tree to edit, null for empty tree
+     * @param edits  path relative to the tree -> blob to write, or null to delete file or directory
+     * @return id of the new tree, null if the tree became empty
+     */
+    private static ObjectId editTree(ObjectReader reader, ObjectInserter inserter, ObjectId treeId,
+                                     Map<String, ObjectId> edits) throws IOException {
+        Map<String, TreeEntry> entries = new HashMap<>();
+        if (treeId != null) {
+            CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, treeId);
+            for (; !parser.eof(); parser.next()) {
+                entries.put(parser.getEntryPathString(), new TreeEntry(parser.getEntryFileMode(), parser.getEntryObjectId()));
+            }
+        }
+
+        Map<String, Map<String, ObjectId>> childEdits = new LinkedHashMap<>();
+        edits.forEach((path, blob) -> {
+            int separatorIndex = path.indexOf('/');
+            if (separatorIndex < 0) {
+                if (blob == null) {
+                    entries.remove(path);
+                } else {
+                    entries.put(path, new TreeEntry(FileMode.REGULAR_FILE, blob));
+                }
+            } else {
+                childEdits.computeIfAbsent(path.substring(0, separatorIndex), it -> new LinkedHashMap<>())
+                    .put(path.substring(separatorIndex + 1), blob);
+            }
+        });
+        for (var child : childEdits.entrySet()) {
+            TreeEntry existing = entries.get(child.getKey());
+            ObjectId childTree = existing != null && existing.mode() == FileMode.TREE ? existing.id() : null;
+            ObjectId newChildTree = editTree(reader, inserter, childTree, child.getValue());
+            if (newChildTree == null) {
+                entries.remove(child.getKey());
+            } else {
+                entries.put(child.getKey(), new TreeEntry(FileMode.TREE, newChildTree));
+            }
+        }
+
+        if (entries.isEmpty()) {
+            return null;
+        }
+        TreeFormatter formatter = new TreeFormatter();
+        entries.entrySet().stream()
+            .sorted(Comparator.comparing(entry -> treeSortKey(entry.getKey(), entry.getValue())))
+            .forEach(entry -> formatter.append(entry.getKey(), entry.getValue().mode(), entry.getValue().id()));
+        return inserter.insert(formatter);
+    }
+
+    // git sorts tree entries by name, directory names are compared as if they end with '/'
+    private static String treeSortKey(String name, TreeEntry entry) {
+        return entry.mode() == FileMode.TREE ? name + "/" : name;
+    }
+
+    @SneakyThrows
+    private void assertConfigHash(Configuration configuration, String oldConfigHash, ObjectReader reader, ObjectId tree) {
+        if (isBlank(oldConfigHash)) {
+            return;
+        }
+
+        TreeWalk treeWalk = tree == null ? null : TreeWalk.forPath(reader, toRepositoryPath(configuration.getPath()), tree);
+        if (treeWalk == null) {
+            log.debug("Expected hash {} of configuration {} that does not exist", oldConfigHash, configuration.getPath());
+            throw new ConcurrentConfigModificationException();
+        }
+        try (treeWalk) {
+            byte[] content = reader.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).getBytes();
+            String expectedOldConfigHash = sha1Hex(fileService.writeAsString(configuration.getPath(), content));
+            log.debug("Expected hash {}, actual hash {}", expectedOldConfigHash, oldConfigHash);
+            if (!expectedOldConfigHash.equals(oldConfigHash)) {
+                throw new ConcurrentConfigModificationException();
+            }
+        }
+    }
+
+    private String fetchAndMerge() {
         return executeGitAction("pull", git -> {
             String branchName = gitProperties.getBranchName();
             log.info("Start to pull branch: {}", branchName);
@@ -503,11 +1140,28 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         return null;
     }
 
+    /**
+     * Commits and pushes changes of the given configuration paths (files or directories),
+     * only these paths are checked for changes in the working tree.
+     */
+    protected String commitAndPush(String commitMsg, Collection<String> paths) {
+        return commitAndPush(commitMsg, paths, false);
+    }
+
+    /**
+     * @param mergeBeforePush merge changes pushed by others since the last pull into the commit before push
+     * @return the created commit, not the merge commit, as only its changes are known to the caller
+     */
     @SneakyThrows
-    protected String commitAndPush(String commitMsg) {
+    private String commitAndPush(String commitMsg, Collection<String> paths, boolean mergeBeforePush) {
         return executeGitAction("commitAndPush", git -> {
+            if (paths.isEmpty()) {
+                log.info("Skip commit to git as no path changed after performing: {}", commitMsg);
+                return findLastCommit(git);
+            }
             StatusCommand statusCommand = git.status();
             statusCommand.setProgressMonitor(NullProgressMonitor.INSTANCE);
+            paths.stream().map(JGitRepository::toRepositoryPath).distinct().forEach(statusCommand::addPath);
             Status status = statusCommand.call();
             String lastCommit = findLastCommit(git);
             if (status.isClean()) {
@@ -525,38 +1179,68 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
                 return lastCommit;
             }
 
-            AddCommand addCmd = git.add();
-            for (String file : filePatterns) {
-                addCmd.addFilepattern(file);
-            }
-            addCmd.call();
+            try {
+                AddCommand addCmd = git.add();
+                for (String file : filePatterns) {
+                    addCmd.addFilepattern(file);
+                }
+                addCmd.call();
+
+                Set<String> fileToRemove = new HashSet<>();
+                fileToRemove.addAll(status.getMissing());
+                fileToRemove.addAll(status.getRemoved());
+                if (!fileToRemove.isEmpty()) {
+                    RmCommand rm = git.rm();
+                    for (String file : fileToRemove) {
+                        rm.addFilepattern(file);
+                    }
+                    rm.call();
+                }
 
-            Set<String> fileToRemove = new HashSet<>();
-            fileToRemove.addAll(status.getMissing());
-            fileToRemove.addAll(status.getRemoved());
-            if (!fileToRemove.isEmpty()) {
-                RmCommand rm = git.rm();
-                for (String file : fileToRemove) {
-                    rm.addFilepattern(file);
+                RevCommit commit = git.commit().setMessage(commitMsg).call();
+
+                if (mergeBeforePush) {
+                    mergeRemote(git);
                 }
-                rm.call();
-            }
 
-            RevCommit commit = git.commit().setMessage(commitMsg).call();
+                PushCommand push = git.push();
+                push = setAuthorizationConfig(push);
+                push.setThin(true);
+                push.setProgressMonitor(NullProgressMonitor.INSTANCE);
+                if (isNotBlank(branchName)) {
+                    push.setRefSpecs(new RefSpec(REFS_HEADS + branchName));
+                }
+                for (PushResult pushResult : push.call()) {
+                    for (RemoteRefUpdate update : pushResult.getRemoteUpdates()) {
+                        if (update.getStatus() != RemoteRefUpdate.Status.OK && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                            // branch was changed by another instance after pull, client has to retry on actual state
+                            log.warn("Push of commit {} rejected: {} {}", commit.getName(), update.getStatus(), update.getMessage());
+                            throw new ConcurrentConfigModificationException();
+                        }
+                    }
+                }
 
-            PushCommand push = git.push();
-            push = setAuthorizationConfig(push);
-            push.setThin(true);
-            push.setProgressMonitor(NullProgressMonitor.INSTANCE);
-            if (isNotBlank(branchName)) {
-                push.setRefSpecs(new RefSpec(REFS_HEADS + branchName));
+                return commit.getName();
+            } catch (Exception e) {
+                // not pushed changes would be pushed with the next commit, so they are dropped together with the commit
+                log.warn("Reset not pushed changes to commit {}", lastCommit);
+                git.reset().setMode(ResetType.HARD).setRef(lastCommit).call();
+                throw e;
             }
-            push.call();
-
-            return commit.getName();
         });
     }
 
+    private void mergeRemote(Git git) throws GitAPIException {
+        PullCommand pull = setAuthorizationConfig(git.pull());
+        pull.setRebase(false);
+        pull.setProgressMonitor(NullProgressMonitor.INSTANCE);
+        PullResult result = pull.call();
+        if (!result.isSuccessful()) {
+            log.warn("Could not merge remote changes: {}", result.getMergeResult());
+            throw new ConcurrentConfigModificationException();
+        }
+    }
+
     @SneakyThrows
     private void disablePreloadIndexAndFileMode(Git git) {
         StoredConfig config = git.getRepository().getConfig();
@@ -565,45 +1249,76 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         config.save();
     }
 
-    @SneakyThrows
-    private Boolean containsGitCommit(final String commit) {
+    /**
+     * Looks up the commit in the object database without lock, it does not touch the working tree.
+     *
+     * @return full id of the commit, or empty if it is not present in the local repository
+     */
+    private Optional<String> containsGitCommit(final String commit) {
         return executeGitAction("containsGitCommit", git -> {
-            String branchName = gitProperties.getBranchName();
             try {
-                checkout(git);
-
                 ObjectId jCommit = git.getRepository().resolve(commit);
                 if (jCommit == null) {
                     log.warn("Could not find commit: {} due to wrong revision format", commit);
-                    return false;
+                    return Optional.empty();
                 }
 
                 try (RevWalk revWalk = new RevWalk(git.getRepository())) {
                     RevCommit revCommit = revWalk.parseCommit(jCommit);
                     if (revCommit != null) {
                         log.info("Successfully found commit: {} in the local repository", commit);
-                        return true;
+                        return Optional.of(revCommit.getName());
                     } else {
                         log.info("Could not find commit: {} in the local repository", commit);
-                        return false;
+                        return Optional.empty();
                     }
                 }
             } catch (MissingObjectException e) {
                 log.info("Could not find commit: {} due to missing in the local repo", commit);
-                return false;
-            } catch (RefNotFoundException e) {
-                log.warn("Branch {} not found in local repository", branchName);
-                return false;
+                return Optional.empty();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not find commit " + commit + " due to unexpected exception", e);
+            }
+        });
+    }
+
+    /**
+     * Adds to known commits the ones reachable from the read commit and not reachable from previously indexed one.
+     * Lock must be held.
+     */
+    private void indexCommits(String readCommit) {
+        executeGitAction("indexCommits", git -> {
+            try (RevWalk revWalk = new RevWalk(git.getRepository())) {
+                ObjectId head = ObjectId.isId(readCommit) ? ObjectId.fromString(readCommit) : null;
+                if (head == null || head.equals(indexedHead)) {
+                    return null;
+                }
+                revWalk.markStart(revWalk.parseCommit(head));
+                ObjectId previousHead = indexedHead;
+                if (previousHead != null && git.getRepository().getObjectDatabase().has(previousHead)) {
+                    revWalk.markUninteresting(revWalk.parseCommit(previousHead));
+                }
+                int count = 0;
+                for (RevCommit commit : revWalk) {
+                    knownCommits.add(commit.getName());
+                    missingCommits.invalidate(commit.getName());
+                    count++;
+                }
+                indexedHead = head.copy();
+                log.info("Indexed {} new commits up to {}", count, head.getName());
+                return null;
             } catch (IOException e) {
-                log.warn("Could not find commit: {} due to unexpected exception", commit, e);
-                return false;
+                log.warn("Could not index commits of local repository", e);
+                return null;
             }
         });
     }
 
     @SneakyThrows
-    private Repository createRepository() {
-        return FileRepositoryBuilder.create(getGitDir(getGitPath(rootDirectory.getAbsolutePath())));
+    private Git openGit(File repositoryFolder) {
+        Git git = Git.open(getGitDir(repositoryFolder));
+        disablePreloadIndexAndFileMode(git);
+        return git;
     }
 
     @SneakyThrows
@@ -631,12 +1346,12 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
     }
 
     private <R> R executeGitAction(String logActionName, GitFunction<R> function) {
-        try (
-            Repository db = createRepository();
-            Git git = Git.wrap(db)
-        ) {
-            disablePreloadIndexAndFileMode(git);
+        handleLock.readLock().lock();
+        try {
+            Git git = gitHandle;
             return executeLoggedAction(logActionName, () -> function.apply(git));
+        } finally {
+            handleLock.readLock().unlock();
         }
     }
 
@@ -650,17 +1365,32 @@ public class JGitRepository implements PersistenceConfigRepositoryStrategy {
         }
     }
 
-    private <E extends Exception> ConfigVersion runWithPullCommit(String commitMsg, Task<E> task) {
+    private <E extends Exception> ConfigVersion runWithPullCommit(String commitMsg, Collection<String> paths, Task<E> task) {
         return runWithLock(lock, gitProperties.getMaxWaitTimeSecond(), GIT_REPOSITORY, () -> {
             pull();
             StopWatch stopWatch = StopWatch.createStarted();
             task.execute();
             log.info("GIT: User task executed in {} ms", stopWatch.getTime());
-            String commit = commitAndPush(commitMsg);
+            String commit = commitAndPush(commitMsg, paths);
             return new ConfigVersion(commit);
         });
     }
 
+    private record BlobContent(ObjectId id, String content) {
+    }
+
+    private record TreeEntry(FileMode mode, ObjectId id) {
+    }
+
+    private record VersionedPath(String commit, String path) {
+    }
+
+    private static class GroupCommit {
+        private final List<String> messages = new ArrayList<>();
+        private final Set<String> paths = new HashSet<>();
+        private final CompletableFuture<ConfigVersion> version = new CompletableFuture<>();
+    }
+
     @FunctionalInterface
     public interface GitFunction<R> {
         R apply(Git git) throws GitAPIException;
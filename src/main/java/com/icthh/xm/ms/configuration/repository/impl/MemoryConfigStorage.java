@@ -34,4 +34,10 @@ public interface MemoryConfigStorage {
         replaceByConfiguration(List.of());
     }
 
+    /**
+     * Releases resources of the storage, invoked by container on context close.
+     */
+    default void shutdown() {
+    }
+
 }
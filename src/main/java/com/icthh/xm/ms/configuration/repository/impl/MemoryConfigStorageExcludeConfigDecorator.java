@@ -124,4 +124,9 @@ public class MemoryConfigStorageExcludeConfigDecorator implements MemoryConfigSt
     public void clear() {
         memoryConfigStorage.clear();
     }
+
+    @Override
+    public void shutdown() {
+        memoryConfigStorage.shutdown();
+    }
 }
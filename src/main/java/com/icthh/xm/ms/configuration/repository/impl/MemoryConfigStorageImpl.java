@@ -4,6 +4,7 @@ import static com.icthh.xm.ms.configuration.config.BeanConfiguration.TENANT_CONF
 import static com.icthh.xm.ms.configuration.config.Constants.TENANT_PREFIX;
 import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.addAllByKey;
 import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.filterByTenant;
+import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.getFileExtension;
 import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.getPathInTenant;
 import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.getPathsByTenants;
 import static com.icthh.xm.ms.configuration.utils.ConfigPathUtils.getTenantsByPaths;
@@ -17,6 +18,7 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import com.icthh.xm.commons.config.domain.Configuration;
 import com.icthh.xm.commons.config.domain.TenantAliasTree;
 import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import com.icthh.xm.ms.configuration.config.ApplicationProperties.MemoryStorageProperties;
 import com.icthh.xm.ms.configuration.repository.impl.ConfigState.IntermediateConfigState;
 import com.icthh.xm.ms.configuration.service.TenantAliasTreeStorage;
 import com.icthh.xm.ms.configuration.service.dto.FullConfigurationDto;
@@ -25,6 +27,7 @@ import com.icthh.xm.ms.configuration.utils.ConfigPathUtils;
 import com.icthh.xm.ms.configuration.utils.LockUtils;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,7 +37,9 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.Lock;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
@@ -55,12 +60,21 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
 
     private final Map<String, ConfigState> tenantConfigStates = new ConcurrentHashMap<>();
     private volatile Map<String, Set<Configuration>> externalConfigs = Map.of();
-
-    private final List<TenantConfigurationProcessor> configurationProcessors;
+    // immutable snapshot of processed configurations of all tenants, republished together with tenant states
+    private volatile Map<String, Configuration> processedConfigs = Map.of();
+    // paths of processed configurations, used to resolve ant pattern queries
+    private final ConfigPathTrie processedPathIndex = new ConfigPathTrie();
+
+    // processors sorted by priority once, in the order they are applied to each configuration
+    private final ProcessorStep[] processorPipeline;
+    // dispatch index: file extension -> processors of pipeline that declared support of the extension
+    private final Map<String, ProcessorStep[]> processorsByExtension = new ConcurrentHashMap<>();
     private final List<ConfigurationUpdateHook> updateHooks;
     private final TenantAliasTreeStorage tenantAliasTreeStorage;
     private final ApplicationProperties applicationProperties;
     private final Lock lock;
+    // null when tenants processed sequentially on the calling thread
+    private final ForkJoinPool processingPool;
 
     public MemoryConfigStorageImpl(List<TenantConfigurationProcessor> configurationProcessors,
                                    List<ConfigurationUpdateHook> updateHooks,
@@ -70,18 +84,34 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
                                    Lock lock) {
         this.applicationProperties = applicationProperties;
         AnnotationAwareOrderComparator.sort(configurationProcessors);
-        this.configurationProcessors = configurationProcessors;
+        this.processorPipeline = configurationProcessors.stream()
+            .sorted(Comparator.comparing(TenantConfigurationProcessor::getPriority))
+            .map(ProcessorStep::new)
+            .toArray(ProcessorStep[]::new);
         this.updateHooks = updateHooks;
         this.tenantAliasTreeStorage = tenantAliasTreeStorage;
         this.lock = lock;
+        this.processingPool = createProcessingPool(applicationProperties.getMemoryStorage());
+    }
+
+    private static ForkJoinPool createProcessingPool(MemoryStorageProperties properties) {
+        if (properties == null || !properties.isParallelProcessingEnabled()) {
+            return null;
+        }
+        log.info("Parallel tenant configuration processing enabled with parallelism {}", properties.getParallelism());
+        return new ForkJoinPool(Math.max(1, properties.getParallelism()));
+    }
+
+    @Override
+    public void shutdown() {
+        if (processingPool != null) {
+            processingPool.shutdownNow();
+        }
     }
 
     @Override
     public Map<String, Configuration> getProcessedConfigs() {
-        return tenantConfigStates.values().stream()
-            .map(ConfigState::getProcessedConfiguration)
-            .flatMap(map -> map.values().stream())
-            .collect(toMap(Configuration::getPath, identity(), mergeOverride()));
+        return processedConfigs;
     }
 
     @Override
@@ -230,7 +260,8 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
 
         log.info("Try to acquire lock for update configuration");
         return LockUtils.runWithLock(lock, applicationProperties.getUpdateConfigWaitTimeSecond(), "memory storage", () -> {
-            log.info("Lock acquired for update configuration after {} ms", stopWatch.getTime());
+            long lockAcquiredTime = stopWatch.getTime();
+            log.info("Lock acquired for update configuration after {} ms", lockAcquiredTime);
 
             updateExternalConfigs(fullConfiguration.getExternalConfigs());
 
@@ -245,23 +276,58 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
                 updateConfigState.updateConfigurations(updatedConfigs);
             });
 
+            long prepareTime = stopWatch.getTime();
+
             // global config processing
             applyTenantAlias(forUpdate, fullReload);
+            long aliasTime = stopWatch.getTime();
 
-            forUpdate.keySet().forEach(tenant -> {
-                // tenant config processing
-                processTenantConfig(forUpdate.get(tenant));
-            });
+            // tenant config processing
+            processTenantConfigs(forUpdate);
+            long processingTime = stopWatch.getTime();
 
             forUpdate.values().forEach(state -> changedFiles.addAll(state.getChangedFiles().keySet()));
 
             var updatedTenants = convertMapValue(forUpdate, ConfigState::new);
+            var updatedProcessedConfigs = buildProcessedConfigs(updatedTenants);
+            updateProcessedPathIndex(updatedTenants, updatedProcessedConfigs);
             tenantConfigStates.putAll(updatedTenants); // publish changes
-            log.info("Configuration inmemory updated in {} ms", stopWatch.getTime());
+            this.processedConfigs = updatedProcessedConfigs;
+            long totalTime = stopWatch.getTime();
+            log.info("Configuration inmemory updated in {} ms for {} tenants (lock wait: {} ms, prepare: {} ms, "
+                     + "alias: {} ms, processing: {} ms, publish: {} ms)", totalTime, forUpdate.size(),
+                     lockAcquiredTime, prepareTime - lockAcquiredTime, aliasTime - prepareTime,
+                     processingTime - aliasTime, totalTime - processingTime);
             return changedFiles;
         });
     }
 
+    /**
+     * Builds next snapshot of processed configurations: configurations of previous states of updated tenants
+     * are replaced by configurations of the new states, all other tenants are taken from current snapshot as is.
+     * Must be called before updated tenants are published to {@code tenantConfigStates}.
+     */
+    private Map<String, Configuration> buildProcessedConfigs(Map<String, ConfigState> updatedTenants) {
+        Map<String, Configuration> result = new HashMap<>(processedConfigs);
+        updatedTenants.keySet().stream()
+            .map(tenantConfigStates::get)
+            .filter(Objects::nonNull)
+            .forEach(previousState -> previousState.getProcessedConfiguration().forEach(result::remove));
+        updatedTenants.values().forEach(state -> result.putAll(state.getProcessedConfiguration()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void updateProcessedPathIndex(Map<String, ConfigState> updatedTenants,
+                                          Map<String, Configuration> updatedProcessedConfigs) {
+        updatedTenants.keySet().stream()
+            .map(tenantConfigStates::get)
+            .filter(Objects::nonNull)
+            .flatMap(previousState -> previousState.getProcessedConfiguration().keySet().stream())
+            .filter(path -> !updatedProcessedConfigs.containsKey(path))
+            .forEach(processedPathIndex::remove);
+        updatedTenants.values().forEach(state -> state.getProcessedConfiguration().keySet().forEach(processedPathIndex::add));
+    }
+
     private List<Configuration> applyUpdateHooks(List<Configuration> configs) {
         List<Configuration> result = configs;
         for (ConfigurationUpdateHook hook : updateHooks) {
@@ -289,6 +355,8 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
     public void clear() {
         tenantConfigStates.clear();
         externalConfigs = Map.of();
+        processedConfigs = Map.of();
+        processedPathIndex.clear();
     }
 
     private IntermediateConfigState requestUpdate(String tenant, Map<String, IntermediateConfigState> forUpdate) {
@@ -313,26 +381,58 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
         }
     }
 
+    private void processTenantConfigs(Map<String, IntermediateConfigState> forUpdate) {
+        if (processingPool == null || forUpdate.size() < 2) {
+            forUpdate.values().forEach(this::processTenantConfig);
+            return;
+        }
+
+        // after alias pass tenants are independent, but children are still processed after their parents
+        TenantAliasTree tenantAliasTree = tenantAliasTreeStorage.getTenantAliasTree();
+        Map<Integer, List<IntermediateConfigState>> tenantsByDepth = new TreeMap<>();
+        forUpdate.forEach((tenant, state) -> tenantsByDepth
+            .computeIfAbsent(tenantAliasTree.getParents(tenant).size(), it -> new ArrayList<>())
+            .add(state));
+
+        tenantsByDepth.forEach((depth, states) -> {
+            StopWatch stopWatch = StopWatch.createStarted();
+            processingPool.submit(() -> states.parallelStream().forEach(this::processTenantConfig)).join();
+            log.info("Processed {} tenants of alias depth {} in {} ms", states.size(), depth, stopWatch.getTime());
+        });
+    }
+
     private void processTenantConfig(IntermediateConfigState state) {
-        processConfigurations(state.getChangedFiles().values(), state);
+        Runnable batch = () -> processConfigurations(state.getChangedFiles().values(), state);
+        for (ProcessorStep step : processorPipeline) {
+            Runnable innerBatch = batch;
+            batch = () -> step.processor().processTenantBatch(state.getKey(), innerBatch);
+        }
+        batch.run();
     }
 
     private void processConfigurations(Collection<Configuration> configurations, IntermediateConfigState state) {
         var changedConfigurationFiles = new ArrayList<>(configurations); // copy list before modification in clean and in iteration
         state.cleanProcessedConfiguration(toPathsList(configurations));
         Set<Configuration> configToReprocess = new HashSet<>();
-        for(Configuration configuration : changedConfigurationFiles) {
+        var external = externalConfigs;
+        for (Configuration configuration : changedConfigurationFiles) {
             Configuration workingConfig = new Configuration(configuration.getPath(), configuration.getContent());
-            configurationProcessors.stream()
-                .sorted(Comparator.comparing(TenantConfigurationProcessor::getPriority))
-                .forEach(processor -> {
-                    var configs = processor.safeRun(workingConfig, state, configToReprocess, externalConfigs);
+            String path = workingConfig.getPath();
+            for (ProcessorStep step : getProcessorsByExtension(getFileExtension(path))) {
+                if (isBlank(workingConfig.getContent()) || !step.acceptsPath(path)) {
+                    continue;
+                }
+                var configs = step.processor().safeRun(workingConfig, state, configToReprocess, external);
+                if (!configs.isEmpty()) {
                     state.addProcessedConfiguration(workingConfig, configs);
-                    addProducedFileToProcessingQueueIfExist(workingConfig, state, configToReprocess);
                     if (configs.containsKey(workingConfig.getPath())) {
-                      workingConfig.setContent(configs.get(workingConfig.getPath()).getContent());
+                        workingConfig.setContent(configs.get(workingConfig.getPath()).getContent());
                     }
-                });
+                }
+            }
+            if (processorPipeline.length > 0) {
+                addProducedFileToProcessingQueueIfExist(workingConfig, state, configToReprocess);
+            }
         }
         if (!configToReprocess.isEmpty()) {
             processConfigurations(configToReprocess, state);
@@ -410,6 +510,37 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
         return result;
     }
 
+    private ProcessorStep[] getProcessorsByExtension(String extension) {
+        return processorsByExtension.computeIfAbsent(extension, ext -> Stream.of(processorPipeline)
+            .filter(step -> step.acceptsExtension(ext))
+            .toArray(ProcessorStep[]::new));
+    }
+
+    private record ProcessorStep(TenantConfigurationProcessor processor, Set<String> extensions,
+                                 List<String> pathPatterns, AntPathMatcher matcher) {
+
+        private ProcessorStep(TenantConfigurationProcessor processor) {
+            this(processor, Set.copyOf(processor.getSupportedExtensions()),
+                 List.copyOf(processor.getSupportedPathPatterns()), new AntPathMatcher());
+        }
+
+        private boolean acceptsExtension(String extension) {
+            return extensions.isEmpty() || extensions.contains(extension);
+        }
+
+        private boolean acceptsPath(String path) {
+            if (pathPatterns.isEmpty()) {
+                return true;
+            }
+            for (String pattern : pathPatterns) {
+                if (matcher.match(pattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private static List<String> toPathsList(Collection<Configuration> configs) {
         return configs.stream().map(Configuration::getPath).collect(toList());
     }
@@ -429,10 +560,12 @@ public class MemoryConfigStorageImpl implements MemoryConfigStorage {
     }
 
     private Stream<Configuration> getByAntPatternPaths(Collection<String> antPatternPaths) {
-        return getProcessedConfigs().values().stream().filter(configuration -> {
-                    final String configPath = configuration.getPath();
-                    return antPatternPaths.stream().anyMatch(patternPath -> antPathMatcher.match(patternPath, configPath));
-                });
+        Map<String, Configuration> configs = processedConfigs;
+        return antPatternPaths.stream()
+            .flatMap(patternPath -> processedPathIndex.findCandidates(patternPath).stream()
+                .filter(configPath -> antPathMatcher.match(patternPath, configPath)))
+            .map(configs::get)
+            .filter(Objects::nonNull);
     }
 
 }
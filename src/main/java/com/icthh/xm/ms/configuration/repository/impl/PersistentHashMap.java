@@ -0,0 +1,341 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable hash array mapped trie (HAMT).
+ * <p>
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} return a new map that shares all untouched nodes
+ * with the original one, so a modification allocates only the path from the root to the changed entry.
+ * Null keys and null values are not supported.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(new BitmapNode(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            return (PersistentHashMap<K, V>) map;
+        }
+        PersistentHashMap<K, V> result = empty();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Object value = root.find(hash(key), 0, key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(hash(key), 0, key) != NOT_FOUND;
+    }
+
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(hash(key), 0, key, value, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node newRoot = root.remove(hash(key), 0, key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Node keeps key/value pairs in one array, pair with {@code null} key holds a child node as value.
+     */
+    private interface Node {
+
+        Object find(int hash, int shift, Object key);
+
+        Node put(int hash, int shift, Object key, Object value, boolean[] added);
+
+        Node remove(int hash, int shift, Object key);
+
+        Object[] array();
+    }
+
+    private record BitmapNode(int bitmap, Object[] array) implements Node {
+
+        @Override
+        public Object find(int hash, int shift, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int idx = 2 * index(bit);
+            Object nodeKey = array[idx];
+            Object nodeValue = array[idx + 1];
+            if (nodeKey == null) {
+                return ((Node) nodeValue).find(hash, shift + BITS, key);
+            }
+            return key.equals(nodeKey) ? nodeValue : NOT_FOUND;
+        }
+
+        @Override
+        public Node put(int hash, int shift, Object key, Object value, boolean[] added) {
+            int bit = bitpos(hash, shift);
+            int idx = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, idx);
+                newArray[idx] = key;
+                newArray[idx + 1] = value;
+                System.arraycopy(array, idx, newArray, idx + 2, array.length - idx);
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            Object nodeKey = array[idx];
+            Object nodeValue = array[idx + 1];
+            if (nodeKey == null) {
+                Node child = (Node) nodeValue;
+                Node newChild = child.put(hash, shift + BITS, key, value, added);
+                return newChild == child ? this : new BitmapNode(bitmap, cloneAndSet(array, idx + 1, newChild));
+            }
+            if (key.equals(nodeKey)) {
+                return nodeValue == value ? this : new BitmapNode(bitmap, cloneAndSet(array, idx + 1, value));
+            }
+
+            added[0] = true;
+            Node child = createNode(shift + BITS, nodeKey, nodeValue, hash, key, value);
+            Object[] newArray = array.clone();
+            newArray[idx] = null;
+            newArray[idx + 1] = child;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        public Node remove(int hash, int shift, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = 2 * index(bit);
+            Object nodeKey = array[idx];
+            Object nodeValue = array[idx + 1];
+            if (nodeKey == null) {
+                Node child = (Node) nodeValue;
+                Node newChild = child.remove(hash, shift + BITS, key);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return new BitmapNode(bitmap, cloneAndSet(array, idx + 1, newChild));
+                }
+                return removePair(bit, idx);
+            }
+            return key.equals(nodeKey) ? removePair(bit, idx) : this;
+        }
+
+        private Node removePair(int bit, int idx) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx, array.length - idx - 2);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return new BitmapNode(0, new Object[0])
+                .put(hash1, shift, key1, value1, added)
+                .put(hash2, shift, key2, value2, added);
+        }
+    }
+
+    private record CollisionNode(int hash, Object[] array) implements Node {
+
+        @Override
+        public Object find(int hash, int shift, Object key) {
+            int idx = indexOf(key);
+            return idx < 0 ? NOT_FOUND : array[idx + 1];
+        }
+
+        @Override
+        public Node put(int hash, int shift, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // nest collision node into bitmap node on the same level
+                return new BitmapNode(bitpos(this.hash, shift), new Object[] {null, this})
+                    .put(hash, shift, key, value, added);
+            }
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                return array[idx + 1] == value ? this : new CollisionNode(hash, cloneAndSet(array, idx + 1, value));
+            }
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public Node remove(int hash, int shift, Object key) {
+            int idx = indexOf(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx, array.length - idx - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int idx, Object value) {
+        Object[] result = array.clone();
+        result[idx] = value;
+        return result;
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Entry<K, V> next;
+
+        private EntryIterator(Node root) {
+            arrays.push(root.array());
+            positions.push(0);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                Object key = array[position];
+                Object value = array[position + 1];
+                if (key == null) {
+                    arrays.push(((Node) value).array());
+                    positions.push(0);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) key, (V) value);
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+}
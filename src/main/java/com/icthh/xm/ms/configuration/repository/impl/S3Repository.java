@@ -1,6 +1,11 @@
 package com.icthh.xm.ms.configuration.repository.impl;
 
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
 import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_NOT_IMPLEMENTED;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_PRECONDITION_FAILED;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.google.common.collect.Lists;
@@ -12,12 +17,27 @@ import com.icthh.xm.ms.configuration.domain.ConfigurationList;
 import com.icthh.xm.ms.configuration.repository.PersistenceConfigRepositoryStrategy;
 import com.icthh.xm.ms.configuration.service.ConcurrentConfigModificationException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
@@ -25,14 +45,18 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 @Slf4j
 public class S3Repository implements PersistenceConfigRepositoryStrategy {
 
+    // pseudo-version of objects without S3 version id, and the only version of bucket before listing versions
     private static final ConfigVersion S3_VERSION = new ConfigVersion("s3");
     private static final int S3_PRIORITY = 1; // Highest priority
 
@@ -41,14 +65,28 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
     private final S3Client s3Client;
     private final String configPrefix;
     private final S3Rules s3Rules;
+    private final int concurrency;
+    // object key -> last read content, to skip download of objects with unchanged ETag
+    private final Map<String, CachedObject> objectCache = new ConcurrentHashMap<>();
+    // version of the last read of all configurations, writes and partial reads do not change it
+    private volatile ConfigVersion lastVersion;
+    // switched off on the first write rejected by backend without If-Match support
+    private volatile boolean conditionalWritesSupported = true;
 
     public S3Repository(S3Client s3Client, String bucketName, String configPath, S3Rules s3Rules) {
+        this(s3Client, bucketName, configPath, s3Rules, 1);
+    }
+
+    public S3Repository(S3Client s3Client, String bucketName, String configPath, S3Rules s3Rules,
+                        int concurrency) {
         this.s3Client = s3Client;
         this.bucketName = bucketName;
         this.configPath = configPath;
         this.s3Rules = s3Rules;
         this.configPrefix = resolveConfigPrefix(configPath);
-        log.info("S3 bucket to use: {}, config path: {}", bucketName, configPath);
+        this.concurrency = Math.max(concurrency, 1);
+        log.info("S3 bucket to use: {}, config path: {}, concurrency: {}", bucketName, configPath,
+                this.concurrency);
     }
 
     @Override
@@ -89,10 +127,12 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
         return configPath != null ? configPath + "/config/" : "config/";
     }
 
+    /**
+     * Bucket has no commits, so only the version of the last full read is known, any other version requires reload.
+     */
     @Override
     public boolean hasVersion(ConfigVersion version) {
-        // S3 does not have commit versions, always return true for now
-        return true;
+        return S3_VERSION.equals(version) || version.equals(lastVersion);
     }
 
     @Override
@@ -101,43 +141,150 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
     }
 
     private ConfigurationList readFromDirectory(String prefix) {
+        return readFromDirectories(List.of(prefix));
+    }
+
+    private ConfigurationList readFromDirectories(List<String> prefixes) {
+        var listedETags = new ConcurrentHashMap<String, String>();
+        var objects = prefixes.stream()
+                .flatMap(this::listObjects)
+                .peek(s3Object -> listedETags.put(s3Object.key(), Objects.toString(s3Object.eTag(), "")));
+        var configs = readConfigurations(objects);
+        // objects absent in the listing are deleted
+        objectCache.keySet().removeIf(key -> !listedETags.containsKey(key) && prefixes.stream().anyMatch(key::startsWith));
+        if (!prefixes.equals(List.of(configPrefix))) {
+            // tenant listings do not cover the whole bucket, so their content has no bucket version
+            return new ConfigurationList(S3_VERSION, configs);
+        }
+        // only the version of configurations actually returned to caller becomes known
+        var version = toVersion(listedETags);
+        lastVersion = version;
+        return new ConfigurationList(version, configs);
+    }
+
+    /**
+     * Version is a hash over sorted keys and ETags of all configurations, so it changes with any write
+     * or delete and stays the same while the bucket is not modified.
+     */
+    private ConfigVersion toVersion(Map<String, String> eTagsByKey) {
+        var manifest = new StringBuilder();
+        new TreeMap<>(eTagsByKey).forEach((key, eTag) -> manifest.append(key).append(' ').append(eTag).append('\n'));
+        return new ConfigVersion(sha1Hex(manifest.toString()));
+    }
+
+    private Stream<S3Object> listObjects(String prefix) {
         var request = ListObjectsV2Request.builder()
                 .bucket(bucketName)
                 .prefix(prefix)
                 .build();
         var response = s3Client.listObjectsV2Paginator(request);
-        var configs = response.contents().stream()
-                .filter(o -> !o.key().endsWith("/"))
-                .map(this::findConfiguration)
-                .toList();
-        return new ConfigurationList(S3_VERSION, configs);
+        return response.contents().stream()
+                .filter(o -> !o.key().endsWith("/"));
+    }
+
+    private List<Configuration> readConfigurations(Stream<S3Object> objects) {
+        return runConcurrently(objects, this::findConfiguration);
+    }
+
+    /**
+     * Runs requests on virtual threads, at most concurrency at a time. Reading of next items waits
+     * for free permits, so not started requests do not pile up. Result keeps the order of items.
+     * After the first failure not started requests are skipped, and the first failed request in order
+     * of items is rethrown after running requests are completed.
+     */
+    @SneakyThrows
+    private <T, R> List<R> runConcurrently(Stream<T> items, Function<T, R> request) {
+        if (concurrency == 1) {
+            return items.map(request).toList();
+        }
+
+        var permits = new Semaphore(concurrency);
+        var failed = new AtomicBoolean();
+        var futures = new ArrayList<Future<R>>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var iterator = items.iterator(); iterator.hasNext() && !failed.get(); ) {
+                var item = iterator.next();
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return failed.get() ? null : request.apply(item);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        var results = new ArrayList<R>(futures.size());
+        for (var future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+        return results;
     }
 
     private Configuration findConfiguration(S3Object s3Object) {
         var key = s3Object.key();
         var path = (configPath != null && key.startsWith(configPath)) ? key.substring(configPath.length()) : key;
+        var cached = objectCache.get(key);
+        if (cached != null && s3Object.eTag() != null && s3Object.eTag().equals(cached.eTag())) {
+            return new Configuration(path, cached.content());
+        }
         var s3File = readFile(path, null);
         return new Configuration(path, s3File.content);
     }
 
+    /**
+     * Reads the object, latest version of a cached object is requested with If-None-Match
+     * and is not downloaded again if it is not modified.
+     */
     private S3File readFile(String path, String version) {
         var key = resolveKey(path);
+        var latest = version == null;
+        var cached = latest ? objectCache.get(key) : null;
         var request = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .versionId(version)
                 .key(key)
+                .ifNoneMatch(cached != null ? cached.eTag() : null)
                 .build();
         try {
             var response = s3Client.getObject(request, ResponseTransformer.toBytes());
             var content = response.asUtf8String();
             version = response.response().versionId();
+            if (latest) {
+                cacheObject(key, response.response().eTag(), version, content);
+            }
             return new S3File(version, content);
+        } catch (S3Exception e) {
+            if (cached != null && e.statusCode() == HTTP_NOT_MODIFIED) {
+                return new S3File(cached.version(), cached.content());
+            }
+            if (latest && e.statusCode() == HTTP_NOT_FOUND) {
+                objectCache.remove(key);
+            }
+            log.warn("Could not read S3 object: {}", key, e);
+            return new S3File(version, null);
         } catch (Exception e) {
             log.warn("Could not read S3 object: {}", key, e);
             return new S3File(version, null);
         }
     }
 
+    private void cacheObject(String key, String eTag, String version, String content) {
+        if (eTag == null) {
+            objectCache.remove(key);
+        } else {
+            objectCache.put(key, new CachedObject(eTag, version, content, sha1Hex(content)));
+        }
+    }
+
     @Override
     public ConfigurationList findAllInTenant(String tenantKey) {
         return readFromDirectory(configPrefix + "tenants/" + tenantKey + "/");
@@ -145,10 +292,9 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
 
     @Override
     public ConfigurationList findAllInTenants(Set<String> tenants) {
-        var configs = tenants.stream()
-                .flatMap(tenant -> findAllInTenant(tenant).getData().stream())
-                .toList();
-        return new ConfigurationList(S3_VERSION, configs);
+        return readFromDirectories(tenants.stream()
+                .map(tenant -> configPrefix + "tenants/" + tenant + "/")
+                .toList());
     }
 
     @Override
@@ -169,24 +315,108 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
 
     @Override
     public ConfigVersion save(Configuration configuration) {
-        var path = configuration.getPath();
-        var key = resolveKey(path);
-        var request = PutObjectRequest.builder().bucket(bucketName).key(key).build();
+        var response = putObject(configuration, null);
+        return buildConfigVersion(response.versionId());
+    }
+
+    private PutObjectResponse putObject(Configuration configuration, String ifMatch) {
+        var key = resolveKey(configuration.getPath());
+        var request = PutObjectRequest.builder().bucket(bucketName).key(key).ifMatch(ifMatch).build();
         var content = Optional.ofNullable(configuration.getContent()).orElse(Strings.EMPTY);
         var requestBody = RequestBody.fromString(content, StandardCharsets.UTF_8);
         var response = s3Client.putObject(request, requestBody);
-        return buildConfigVersion(response.versionId());
+        cacheObject(key, response.eTag(), response.versionId(), content);
+        return response;
     }
 
     @Override
     public ConfigVersion saveAll(List<Configuration> configurations, Map<String, String> configHashes) {
-        configurations.forEach(configuration -> save(configuration, configHashes.get(configuration.getPath())));
+        // all expected hashes are checked before the first write, so a batch that is stale at the time
+        // of the check writes nothing, objects changed later are still rejected by If-Match on write
+        runConcurrently(configurations.stream(), configuration -> {
+            checkConfigHash(configuration, configHashes.get(configuration.getPath()));
+            return configuration;
+        });
+        runConcurrently(configurations.stream(), configuration -> {
+            save(configuration, configHashes.get(configuration.getPath()));
+            return configuration;
+        });
         return S3_VERSION;
     }
 
+    /**
+     * Writes the object only if it has not changed since it had the expected hash. When the cached object
+     * has the expected hash, the check is done by S3 with If-Match on the cached ETag, without reading the object.
+     * Otherwise, or if conditional writes are not supported, the object is read and compared before the write.
+     */
     private void save(Configuration configuration, String oldConfigHash) {
-        assertConfigHash(configuration, oldConfigHash);
-        save(configuration);
+        if (isBlank(oldConfigHash)) {
+            putObject(configuration, null);
+            return;
+        }
+
+        var key = resolveKey(configuration.getPath());
+        var cached = objectCache.get(key);
+        var checked = false;
+        if (cached == null || !oldConfigHash.equals(cached.contentHash())) {
+            assertConfigHash(configuration, oldConfigHash);
+            checked = true;
+            cached = objectCache.get(key);
+        }
+
+        if (conditionalWritesSupported && cached != null) {
+            try {
+                putObject(configuration, cached.eTag());
+                return;
+            } catch (S3Exception e) {
+                if (e.statusCode() == HTTP_PRECONDITION_FAILED) {
+                    log.debug("Object {} changed since ETag {}", key, cached.eTag());
+                    objectCache.remove(key);
+                    throw new ConcurrentConfigModificationException();
+                }
+                if (e.statusCode() != HTTP_NOT_IMPLEMENTED) {
+                    throw e;
+                }
+                log.warn("Conditional writes are not supported by S3, hash of object is checked before write");
+                conditionalWritesSupported = false;
+            }
+        }
+
+        if (!checked) {
+            assertConfigHash(configuration, oldConfigHash);
+        }
+        putObject(configuration, null);
+    }
+
+    /**
+     * Object cached with the expected hash is not downloaded, S3 only confirms with conditional HEAD
+     * that the cached ETag is still actual. Otherwise the object is read and compared.
+     */
+    private void checkConfigHash(Configuration configuration, String oldConfigHash) {
+        if (isBlank(oldConfigHash)) {
+            return;
+        }
+        var key = resolveKey(configuration.getPath());
+        var cached = objectCache.get(key);
+        if (cached == null || !oldConfigHash.equals(cached.contentHash()) || !isCachedObjectActual(key, cached)) {
+            assertConfigHash(configuration, oldConfigHash);
+        }
+    }
+
+    private boolean isCachedObjectActual(String key, CachedObject cached) {
+        var request = HeadObjectRequest.builder().bucket(bucketName).key(key).ifMatch(cached.eTag()).build();
+        try {
+            s3Client.headObject(request);
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == HTTP_PRECONDITION_FAILED || e.statusCode() == HTTP_NOT_FOUND) {
+                log.debug("Object {} changed since ETag {}", key, cached.eTag());
+                objectCache.remove(key);
+            } else {
+                log.warn("Could not check S3 object: {}", key, e);
+            }
+            return false;
+        }
     }
 
     private void assertConfigHash(Configuration configuration, String oldConfigHash) {
@@ -203,17 +433,42 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
 
     @Override
     public ConfigVersion setRepositoryState(List<Configuration> configurations) {
-        // Delete all objects under config/ and re-upload
+        return setRepositoryState(configurations.stream());
+    }
+
+    /**
+     * Uploads configurations as they are read from the stream, at most concurrency at a time.
+     * Objects with the same content are not uploaded again, and only objects absent in the stream are deleted,
+     * so the bucket is never emptied during the import.
+     */
+    @Override
+    public ConfigVersion setRepositoryState(Stream<Configuration> configurations) {
         var requestList = ListObjectsV2Request.builder().bucket(bucketName).prefix(configPrefix).build();
-        var responseList = s3Client.listObjectsV2Paginator(requestList);
-        var keys = responseList.contents().stream()
-                .map(S3Object::key)
-                .toList();
-        deleteByKeys(keys);
-        configurations.forEach(this::save);
+        var existingETags = new HashMap<String, String>();
+        s3Client.listObjectsV2Paginator(requestList).contents()
+                .forEach(s3Object -> existingETags.put(s3Object.key(), s3Object.eTag()));
+
+        var importedKeys = new HashSet<>(runConcurrently(configurations, configuration -> {
+            var key = resolveKey(configuration.getPath());
+            var content = Optional.ofNullable(configuration.getContent()).orElse(Strings.EMPTY);
+            if (!isSameContent(existingETags.get(key), content)) {
+                putObject(configuration, null);
+            }
+            return key;
+        }));
+
+        deleteByKeys(existingETags.keySet().stream()
+                .filter(key -> !importedKeys.contains(key))
+                .sorted()
+                .toList());
         return S3_VERSION;
     }
 
+    // ETag of an object uploaded by single put is md5 of its content, ETag of multipart upload is not
+    private static boolean isSameContent(String eTag, String content) {
+        return eTag != null && StringUtils.strip(eTag, "\"").equals(md5Hex(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Override
     public ConfigVersion deleteAll(List<String> paths) {
         List<String> normalized = paths.stream()
@@ -238,6 +493,7 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
                     .build();
 
             s3Client.deleteObjects(request);
+            batch.forEach(objectCache::remove);
         }
     }
 
@@ -253,11 +509,15 @@ public class S3Repository implements PersistenceConfigRepositoryStrategy {
 
     @Override
     public ConfigVersion getCurrentVersion() {
-        // S3 does not have commit versions, return pseudo-version
-        return S3_VERSION;
+        var eTagsByKey = listObjects(configPrefix)
+                .collect(Collectors.toMap(S3Object::key, s3Object -> Objects.toString(s3Object.eTag(), ""), (a, b) -> b));
+        return toVersion(eTagsByKey);
     }
 
     private record S3File(String version, String content) {
 
     }
+
+    private record CachedObject(String eTag, String version, String content, String contentHash) {
+    }
 }
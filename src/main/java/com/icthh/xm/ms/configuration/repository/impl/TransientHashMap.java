@@ -0,0 +1,111 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Mutable map over {@link PersistentHashMap}.
+ * <p>
+ * Every modification replaces the underlying persistent map, so creating the wrapper and taking
+ * the result back by {@link #toPersistent()} is O(1) and shares structure with the original map.
+ * Keys touched by modifications are tracked to allow incremental update of derived views.
+ * Not thread safe.
+ */
+public class TransientHashMap<K, V> extends AbstractMap<K, V> {
+
+    private PersistentHashMap<K, V> map;
+    private final Set<Object> modifiedKeys = new HashSet<>();
+
+    public TransientHashMap(PersistentHashMap<K, V> map) {
+        this.map = map;
+    }
+
+    public PersistentHashMap<K, V> toPersistent() {
+        return map;
+    }
+
+    public Set<Object> getModifiedKeys() {
+        return modifiedKeys;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public V get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = map.get(key);
+        map = map.plus(key, value);
+        modifiedKeys.add(key);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V previous = map.get(key);
+        if (previous != null) {
+            map = map.minus(key);
+            modifiedKeys.add(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        modifiedKeys.addAll(map.keySet());
+        map = PersistentHashMap.empty();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                // iterates over snapshot, so removal through iterator does not break traversal
+                Iterator<Entry<K, V>> snapshot = map.entrySet().iterator();
+                return new Iterator<>() {
+                    private Entry<K, V> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return snapshot.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        last = snapshot.next();
+                        return last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        TransientHashMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
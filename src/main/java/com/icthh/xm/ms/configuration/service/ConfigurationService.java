@@ -1,5 +1,7 @@
 package com.icthh.xm.ms.configuration.service;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Streams;
 import com.icthh.xm.commons.config.client.api.AbstractConfigService;
 import com.icthh.xm.commons.config.client.api.FetchConfigurationSettings;
 import com.icthh.xm.commons.config.domain.Configuration;
@@ -35,11 +37,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
@@ -75,6 +83,8 @@ public class ConfigurationService extends AbstractConfigService implements Initi
     private final VersionCache version;
     private final Lock lock;
     private final AntPathMatcher jwkPathMatcher = new AntPathMatcher();
+    // running updates by requested version, concurrent requests of the same version wait for one update
+    private final Map<ConfigVersion, CompletableFuture<Void>> versionUpdates = new ConcurrentHashMap<>();
 
     public ConfigurationService(MemoryConfigStorage memoryStorage,
                                 @Qualifier("configRepository")
@@ -143,6 +153,37 @@ public class ConfigurationService extends AbstractConfigService implements Initi
     }
 
     private void updateConfig(ConfigVersion version) {
+        CompletableFuture<Void> update = new CompletableFuture<>();
+        CompletableFuture<Void> runningUpdate = versionUpdates.putIfAbsent(version, update);
+        if (runningUpdate != null) {
+            log.info("Wait for running update of configuration by commit: {}", version);
+            await(runningUpdate, OPERATION + " by commit " + version);
+            return;
+        }
+
+        try {
+            updateConfigWithLock(version);
+            update.complete(null);
+        } catch (RuntimeException e) {
+            update.completeExceptionally(e);
+            throw e;
+        } finally {
+            versionUpdates.remove(version, update);
+        }
+    }
+
+    @SneakyThrows
+    private <T> T await(CompletableFuture<T> future, String operation) {
+        try {
+            return future.get(applicationProperties.getUpdateConfigWaitTimeSecond(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalMonitorStateException(operation + " not finished in time");
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void updateConfigWithLock(ConfigVersion version) {
         LockUtils.runWithLock(lock, applicationProperties.getUpdateConfigWaitTimeSecond(), OPERATION, () -> {
             if (isOnCommit(version)) {
                 log.info("Configuration already actual by commit: {}", version);
@@ -150,13 +191,43 @@ public class ConfigurationService extends AbstractConfigService implements Initi
             }
 
             log.info("Load actual configuration from git by commit: {}", version);
-            ConfigurationList configurationList = persistenceRepository.findAll();
-            List<Configuration> actualConfigs = configurationList.getData();
-            memoryStorage.replaceByConfiguration(actualConfigs);
-            this.version.addVersion(configurationList.getVersion());
+            persistenceRepository.fetch(version);
+            ReloadResult result = reloadConfiguration();
+            this.version.addVersion(result.version());
         });
     }
 
+    /**
+     * Applies to memory storage only configurations changed since the last applied version,
+     * or all configurations when changes can not be calculated.
+     */
+    private ReloadResult reloadConfiguration() {
+        Optional<ConfigurationList> changes = findChangesSinceAppliedVersion();
+        Set<String> updated;
+        ConfigurationList configurationList;
+        if (changes.isPresent()) {
+            configurationList = changes.get();
+            log.info("Apply {} changed configurations", configurationList.getData().size());
+            updated = memoryStorage.saveConfigs(configurationList.getData());
+        } else {
+            configurationList = persistenceRepository.findAll();
+            handleAliasTreeUpdate(configurationList);
+            updated = memoryStorage.replaceByConfiguration(configurationList.getData());
+        }
+        version.setAppliedVersion(configurationList.getVersion());
+        return new ReloadResult(configurationList.getVersion(), updated);
+    }
+
+    private Optional<ConfigurationList> findChangesSinceAppliedVersion() {
+        ConfigVersion appliedVersion = version.getAppliedVersion();
+        if (UNDEFINED_VERSION.equals(appliedVersion)) {
+            return Optional.empty();
+        }
+        // alias tree change affects configurations of all child tenants
+        return persistenceRepository.findChanges(appliedVersion)
+            .filter(changes -> changes.getData().stream().noneMatch(it -> TENANT_ALIAS_CONFIG.equals(it.getPath())));
+    }
+
     public Optional<Configuration> findConfiguration(String path, ConfigVersion version) {
         if (version == null || UNDEFINED_VERSION.equals(version)) {
             return memoryStorage.getConfig(path);
@@ -230,12 +301,30 @@ public class ConfigurationService extends AbstractConfigService implements Initi
 
     public void saveConfigurations(List<Configuration> configurations, Map<String, String> configHashes) {
         assertPersistenceUpdateAvailable();
-        ConfigVersion configVersion = persistenceRepository.saveAll(configurations, configHashes);
+        CompletableFuture<ConfigVersion> persisted = persistenceRepository.saveAllAsync(configurations, configHashes);
         Set<String> updatedConfigs = memoryStorage.saveConfigs(configurations);
+        ConfigVersion configVersion;
+        try {
+            configVersion = await(persisted, "save configurations");
+        } catch (Exception e) {
+            // memory has configurations that were not persisted, so it is reloaded from persistence
+            version.resetAppliedVersion();
+            reloadAfterFailedSave(e);
+            throw e;
+        }
         version.addVersion(configVersion);
         notifyChanged(configVersion, updatedConfigs);
     }
 
+    private void reloadAfterFailedSave(Exception saveError) {
+        try {
+            refreshConfiguration(false);
+        } catch (RuntimeException e) {
+            log.error("Could not reload configuration after failed save", e);
+            saveError.addSuppressed(e);
+        }
+    }
+
     public void createConfigurations(List<MultipartFile> files) {
         List<Configuration> configurations = files.stream().map(this::toConfiguration).collect(toList());
         saveConfigurations(configurations, Map.of());
@@ -255,6 +344,10 @@ public class ConfigurationService extends AbstractConfigService implements Initi
             assertInMemoryUpdateAvailable();
         }
         Set<String> updated = memoryStorage.saveConfigs(configurations);
+        if (!isJwkPublicKeysUpdate(configurations)) {
+            // memory differs from persistence now, so next refresh has to reload everything
+            version.resetAppliedVersion();
+        }
         notifyChanged(version.getLastVersion(), updated);
     }
 
@@ -278,6 +371,7 @@ public class ConfigurationService extends AbstractConfigService implements Initi
     public void deleteConfigurationInMemory(List<String> paths) {
         assertInMemoryUpdateAvailable();
         Set<String> updated = memoryStorage.remove(paths);
+        version.resetAppliedVersion();
         notifyChanged(version.getLastVersion(), updated);
     }
 
@@ -286,12 +380,10 @@ public class ConfigurationService extends AbstractConfigService implements Initi
     }
 
     private void refreshConfiguration(boolean sendNotification) {
-        ConfigurationList configurationList = persistenceRepository.findAll();
-        handleAliasTreeUpdate(configurationList);
-        Set<String> updated = memoryStorage.replaceByConfiguration(configurationList.getData());
-        version.addVersion(configurationList.getVersion());
+        ReloadResult result = reloadConfiguration();
+        version.addVersion(result.version());
         if (sendNotification) {
-            notifyChanged(configurationList.getVersion(), updated);
+            notifyChanged(result.version(), result.updated());
         }
     }
 
@@ -325,6 +417,16 @@ public class ConfigurationService extends AbstractConfigService implements Initi
 
     public void recloneConfiguration() {
         persistenceRepository.recloneConfiguration();
+        version.resetAppliedVersion();
+        refreshConfiguration();
+    }
+
+    /**
+     * Fetches remote changes and applies them to memory storage, so fetched versions are not reported as known
+     * while memory storage still holds the previous state.
+     */
+    public void fetchConfiguration() {
+        persistenceRepository.fetch();
         refreshConfiguration();
     }
 
@@ -358,32 +460,45 @@ public class ConfigurationService extends AbstractConfigService implements Initi
     @SneakyThrows
     public ConfigVersion updateConfigurationsFromZip(MultipartFile zipFile) {
         assertPersistenceUpdateAvailable();
-        ConfigVersion configVersion = persistenceRepository.setRepositoryState(unzip(new ZipInputStream(zipFile.getInputStream())));
+        ConfigVersion configVersion;
+        try (ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
+            configVersion = persistenceRepository.setRepositoryState(unzipLazily(zipInputStream));
+        }
         refreshConfiguration();
         return configVersion;
     }
 
-    @SneakyThrows
     public static List<Configuration> unzip(final ZipInputStream zipInputStream) {
-        List<Configuration> configurations = new ArrayList<>();
-
-        ZipEntry entry;
-        while ((entry = zipInputStream.getNextEntry()) != null) {
-            String name = entry.getName();
-            int beginIndex = name.indexOf("config/");
-            if (beginIndex < 0) {
-                log.warn("Skip {} file. It's not under /config folder", name);
-                continue;
-            }
-            if (entry.isDirectory()) {
-                continue;
-            }
-
-            String path = "/" + name.substring(beginIndex);
-            configurations.add(new Configuration(path, IOUtils.toString(zipInputStream, UTF_8)));
-        }
+        return new ArrayList<>(unzipLazily(zipInputStream).toList());
+    }
 
-        return configurations;
+    /**
+     * Reads the next zip entry only when the next configuration is requested, so one entry is held in memory at a time.
+     */
+    public static Stream<Configuration> unzipLazily(final ZipInputStream zipInputStream) {
+        Iterator<Configuration> configurations = new AbstractIterator<>() {
+            @Override
+            @SneakyThrows
+            protected Configuration computeNext() {
+                ZipEntry entry;
+                while ((entry = zipInputStream.getNextEntry()) != null) {
+                    String name = entry.getName();
+                    int beginIndex = name.indexOf("config/");
+                    if (beginIndex < 0) {
+                        log.warn("Skip {} file. It's not under /config folder", name);
+                        continue;
+                    }
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+
+                    String path = "/" + name.substring(beginIndex);
+                    return new Configuration(path, IOUtils.toString(zipInputStream, UTF_8));
+                }
+                return endOfData();
+            }
+        };
+        return Streams.stream(configurations);
     }
 
     private Boolean isConfigUnderTenant(String tenant, String configPath) {
@@ -450,6 +565,9 @@ public class ConfigurationService extends AbstractConfigService implements Initi
             .forEach(publisher::publishEvent);
     }
 
+    private record ReloadResult(ConfigVersion version, Set<String> updated) {
+    }
+
     public Map<String, Configuration> findTenantPersistedConfigurations(List<String> paths, Boolean fetchAll) {
         if (!fetchAll && paths.isEmpty()) {
             return Map.of();
@@ -0,0 +1,87 @@
+package com.icthh.xm.ms.configuration.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * Cache of parsed YAML/JSON documents keyed by hash of the content, so the same content is parsed once
+ * even if several processors read it.
+ * <p>
+ * Cached trees are never exposed: every read returns a new tree or a new object converted from the cached tree,
+ * so callers are free to modify the result.
+ */
+@Component
+public class ParsedDocumentCache {
+
+    private static final String CACHE_NAME = "parsedDocuments";
+
+    private final ObjectMapper jsonMapper = JsonMapper.builder().build();
+    private final ObjectMapper yamlMapper = YAMLMapper.builder().build();
+    private final Cache<DocumentKey, ParsedDocument> cache;
+
+    public ParsedDocumentCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        cache = CacheBuilder.newBuilder()
+            .maximumWeight(applicationProperties.getParsedDocumentCacheMaxBytes())
+            .weigher((DocumentKey key, ParsedDocument document) -> document.weight())
+            .recordStats()
+            .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public JsonNode readTree(String content, DocumentFormat format) {
+        return getTree(content, format).deepCopy();
+    }
+
+    public <T> T readValue(String content, DocumentFormat format, Class<T> type) {
+        try (JsonParser parser = jsonMapper.treeAsTokens(getTree(content, format))) {
+            return jsonMapper.readValue(parser, type);
+        }
+    }
+
+    public <T> T readValue(String content, DocumentFormat format, TypeReference<T> type) {
+        try (JsonParser parser = jsonMapper.treeAsTokens(getTree(content, format))) {
+            return jsonMapper.readValue(parser, type);
+        }
+    }
+
+    private JsonNode getTree(String content, DocumentFormat format) {
+        DocumentKey key = new DocumentKey(format, Hashing.sha256().hashString(content, UTF_8).toString());
+        ParsedDocument document = cache.getIfPresent(key);
+        if (document == null) {
+            document = new ParsedDocument(getMapper(format).readTree(content), content.length() * Character.BYTES);
+            cache.put(key, document);
+        }
+        return document.tree();
+    }
+
+    private ObjectMapper getMapper(DocumentFormat format) {
+        return format == DocumentFormat.JSON ? jsonMapper : yamlMapper;
+    }
+
+    public enum DocumentFormat {
+        JSON, YAML;
+
+        public static DocumentFormat forPath(String path) {
+            return path.endsWith(".json") ? JSON : YAML;
+        }
+    }
+
+    private record DocumentKey(DocumentFormat format, String contentHash) {
+    }
+
+    private record ParsedDocument(JsonNode tree, int weight) {
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Component;
 public class VersionCache {
     private final Cache<ConfigVersion, Boolean> cache;
     private final AtomicReference<ConfigVersion> lastVersion = new AtomicReference<>(ConfigVersion.UNDEFINED_VERSION);
+    // version whose whole content is applied to memory storage, base for incremental refresh
+    private final AtomicReference<ConfigVersion> appliedVersion = new AtomicReference<>(ConfigVersion.UNDEFINED_VERSION);
 
     public VersionCache(ApplicationProperties applicationProperties) {
         cache = CacheBuilder.newBuilder()
@@ -30,4 +32,16 @@ public class VersionCache {
     public ConfigVersion getLastVersion() {
         return lastVersion.get();
     }
+
+    public void setAppliedVersion(ConfigVersion version) {
+        appliedVersion.set(version);
+    }
+
+    public ConfigVersion getAppliedVersion() {
+        return appliedVersion.get();
+    }
+
+    public void resetAppliedVersion() {
+        appliedVersion.set(ConfigVersion.UNDEFINED_VERSION);
+    }
 }
@@ -38,6 +38,8 @@ import org.springframework.util.AntPathMatcher;
 @Component
 public class EnvConfigExternalizationFromFile implements TenantConfigurationProcessor {
 
+    private static final String TENANT_PROFILE_FILE = "/tenant-profile.yml";
+
     private final Map<String, String> environment;
     private final ObjectMapper objectMapper = YAMLMapper.builder().build();
     private final Map<String, TenantProfileEntry> tenantProfileCash = new ConcurrentHashMap<>();
@@ -52,7 +54,14 @@ public class EnvConfigExternalizationFromFile implements TenantConfigurationProc
 
     @Override
     public boolean isSupported(Configuration configuration) {
-        return true;
+        // only configurations with placeholders are changed, tenant profile change triggers reprocessing of tenant
+        return configuration.getContent().contains("${") || isTenantProfile(configuration.getPath());
+    }
+
+    private boolean isTenantProfile(String path) {
+        return path.startsWith(TENANT_PREFIX) && path.endsWith(TENANT_PROFILE_FILE)
+            && path.equals(getTenantProfilePath(
+                matcher.extractUriTemplateVariables(TENANT_ENV_PATTERN, path).get(TENANT_NAME)));
     }
 
     @SneakyThrows
@@ -123,7 +132,7 @@ public class EnvConfigExternalizationFromFile implements TenantConfigurationProc
     }
 
     private static String getTenantProfilePath(String tenantKey) {
-        return tenantFolderPath(tenantKey) + "/tenant-profile.yml";
+        return tenantFolderPath(tenantKey) + TENANT_PROFILE_FILE;
     }
 
     private static String tenantFolderPath(String tenantKey) {
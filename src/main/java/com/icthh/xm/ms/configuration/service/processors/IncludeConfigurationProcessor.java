@@ -5,6 +5,9 @@ import tools.jackson.databind.json.JsonMapper;
 import tools.jackson.dataformat.yaml.YAMLFactory;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache.DocumentFormat;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
@@ -25,6 +28,7 @@ import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class IncludeConfigurationProcessor implements TenantConfigurationProcessor {
 
     public static final int GAP_FOR_FUTURE = 10;
@@ -32,10 +36,16 @@ public class IncludeConfigurationProcessor implements TenantConfigurationProcess
 
     private final ObjectMapper jsonMapper = JsonMapper.builder().build();
     private final ObjectMapper yamlMapper = YAMLMapper.builder().build();
+    private final ParsedDocumentCache documentCache;
 
     // Dependency tracking: key is the included file path, value is set of files that depend on it
     private final Map<String, Set<String>> dependencyRegistry = new ConcurrentHashMap<>();
 
+    @Override
+    public Set<String> getSupportedExtensions() {
+        return Set.of("json", "yml", "yaml");
+    }
+
     @Override
     public boolean isSupported(Configuration configuration) {
         return isConfigFile(configuration.getPath());
@@ -99,7 +109,7 @@ public class IncludeConfigurationProcessor implements TenantConfigurationProcess
         try {
             // Try to parse the file
             ObjectMapper mapper = getMapperForFile(filePath);
-            Object parsedContent = mapper.readValue(originalContent, Object.class);
+            Object parsedContent = documentCache.readValue(originalContent, DocumentFormat.forPath(filePath), Object.class);
 
             // Process includes recursively
             Object processedContent = processIncludes(parsedContent, filePath, originalStorage, new HashMap<>());
@@ -181,8 +191,8 @@ public class IncludeConfigurationProcessor implements TenantConfigurationProcess
 
         try {
             // Parse and process the included file recursively
-            ObjectMapper mapper = getMapperForFile(absolutePath);
-            Object includedContent = mapper.readValue(includedConfig.getContent(), Object.class);
+            Object includedContent = documentCache.readValue(includedConfig.getContent(),
+                                                             DocumentFormat.forPath(absolutePath), Object.class);
 
             // Mark as being processed
             processedIncludes.put(absolutePath, includedContent);
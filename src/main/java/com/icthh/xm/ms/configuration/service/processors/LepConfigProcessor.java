@@ -7,6 +7,7 @@ import com.icthh.xm.commons.lep.api.LepManagementService;
 import com.icthh.xm.commons.lep.spring.LepService;
 import com.icthh.xm.commons.tenant.TenantContextHolder;
 import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.ms.configuration.service.TenantAliasTreeStorage;
 import com.icthh.xm.ms.configuration.service.TransactionPropagationService;
 import com.icthh.xm.ms.configuration.service.processors.lep.ConfigurationLepResolver;
 import lombok.RequiredArgsConstructor;
@@ -15,12 +16,15 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static com.icthh.xm.ms.configuration.config.Constants.TENANT_NAME;
+import static com.icthh.xm.ms.configuration.repository.impl.MemoryConfigStorageImpl.COMMONS_CONFIG;
 import static com.icthh.xm.ms.configuration.config.Constants.TENANT_PREFIX;
 import static java.util.Collections.emptyList;
 
@@ -33,13 +37,66 @@ public class LepConfigProcessor extends TransactionPropagationService<LepConfigP
 
     private final TenantContextHolder tenantContextHolder;
     private final LepManagementService lepManager;
+    private final TenantAliasTreeStorage tenantAliasTreeStorage;
     private final AntPathMatcher matcher = new AntPathMatcher();
 
     private static final String TENANT_CONFIG_PATTERN = TENANT_PREFIX + "{" + TENANT_NAME + "}/**/*";
+    private static final String PROCESSORS_LEP_FOLDER = "/lep/processors/";
+    private static final String IS_SUPPORTED_LEP = "IsSupported";
+
+    // tenant whose privileged context and LEP session are opened by processTenantBatch on current thread
+    private static final ThreadLocal<String> BATCH_TENANT = new ThreadLocal<>();
+    // set when default java implementations of IsSupported were executed: there is no IsSupported LEP or it proceeded
+    private static final ThreadLocal<Boolean> DEFAULT_RESOLVER_IS_SUPPORTED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> DEFAULT_IS_SUPPORTED = new ThreadLocal<>();
+
+    // tenant -> paths without IsSupported LEP, filled only while no IsSupported script of tenant (or commons) is seen.
+    // path is enough as a key: resolver group and segments are derived from the relative path only
+    private final Map<String, Set<String>> pathsWithoutLep = new ConcurrentHashMap<>();
+    // tenants with IsSupported scripts, deleted scripts are not tracked, so tenant is never cached again
+    private final Set<String> tenantsWithLep = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void processTenantBatch(String tenant, Runnable batch) {
+        tenantContextHolder.getPrivilegedContext().execute(TenantContextUtils.buildTenant(tenant), () -> {
+            try (LepEngineSession context = lepManager.beginThreadContext()) {
+                BATCH_TENANT.set(tenant);
+                batch.run();
+            } finally {
+                BATCH_TENANT.remove();
+            }
+        });
+    }
 
     @Override
     public boolean isSupported(Configuration configuration) {
-        return runWithLepContext(configuration, () -> self.isSupportedWithResolver(configuration), false);
+        String path = configuration.getPath();
+        if (!matcher.match(TENANT_CONFIG_PATTERN, path)) {
+            return false;
+        }
+        String tenantKey = getTenantKey(path);
+        if (isIsSupportedLep(path)) {
+            registerLep(tenantKey);
+        }
+
+        // taken before evaluation: registered script replaces the set, so result of evaluation is dropped with it
+        Set<String> withoutLep = pathsWithoutLep.computeIfAbsent(tenantKey, key -> ConcurrentHashMap.newKeySet());
+        if (withoutLep.contains(path)) {
+            return false;
+        }
+
+        try {
+            boolean supported = runWithLepContext(configuration, () -> self.isSupportedWithResolver(configuration), false);
+            // default implementation also runs when script calls proceed, so it proves absence of script only
+            // when there is no script at all, engine may still hold scripts that are not reloaded yet
+            if (Boolean.TRUE.equals(DEFAULT_IS_SUPPORTED.get()) && !hasLep(tenantKey)) {
+                withoutLep.add(path);
+            }
+            return supported;
+        } finally {
+            DEFAULT_RESOLVER_IS_SUPPORTED.remove();
+            DEFAULT_IS_SUPPORTED.remove();
+        }
     }
 
     @Override
@@ -55,11 +112,15 @@ public class LepConfigProcessor extends TransactionPropagationService<LepConfigP
 
     @LogicExtensionPoint(value = "IsSupported", resolver = ConfigurationLepResolver.class)
     public boolean isSupportedWithResolver(Configuration configuration) {
+        DEFAULT_RESOLVER_IS_SUPPORTED.set(true);
         return self.isSupportedForAll(configuration);
     }
 
     @LogicExtensionPoint(value = "IsSupported")
     public boolean isSupportedForAll(Configuration configuration) {
+        if (Boolean.TRUE.equals(DEFAULT_RESOLVER_IS_SUPPORTED.get())) {
+            DEFAULT_IS_SUPPORTED.set(true);
+        }
         return false;
     }
 
@@ -81,7 +142,16 @@ public class LepConfigProcessor extends TransactionPropagationService<LepConfigP
         if (!matcher.match(TENANT_CONFIG_PATTERN, configuration.getPath())) {
             return defaultValue;
         }
-        String tenantKey = matcher.extractUriTemplateVariables(TENANT_CONFIG_PATTERN, configuration.getPath()).get(TENANT_NAME);
+        String tenantKey = getTenantKey(configuration.getPath());
+        if (tenantKey.equals(BATCH_TENANT.get())) {
+            // context and session already opened for the whole tenant batch
+            try {
+                return task.get();
+            } catch (Throwable e) {
+                log.error("Error process configuration", e);
+                throw e;
+            }
+        }
         return tenantContextHolder.getPrivilegedContext().execute(TenantContextUtils.buildTenant(tenantKey), () -> {
             try (LepEngineSession context = lepManager.beginThreadContext()) {
                 return task.get();
@@ -92,4 +162,30 @@ public class LepConfigProcessor extends TransactionPropagationService<LepConfigP
         });
     }
 
+    private String getTenantKey(String path) {
+        return matcher.extractUriTemplateVariables(TENANT_CONFIG_PATTERN, path).get(TENANT_NAME);
+    }
+
+    private boolean isIsSupportedLep(String path) {
+        return path.contains(PROCESSORS_LEP_FOLDER) && path.substring(path.lastIndexOf('/') + 1).startsWith(IS_SUPPORTED_LEP);
+    }
+
+    private boolean hasLep(String tenantKey) {
+        return tenantsWithLep.contains(tenantKey) || tenantsWithLep.contains(COMMONS_CONFIG);
+    }
+
+    private void registerLep(String tenantKey) {
+        if (COMMONS_CONFIG.equals(tenantKey)) {
+            tenantsWithLep.add(tenantKey);
+            pathsWithoutLep.clear();
+            return;
+        }
+        // alias children inherit scripts of parent
+        List<String> tenants = new ArrayList<>();
+        tenants.add(tenantKey);
+        tenants.addAll(tenantAliasTreeStorage.getTenantAliasTree().getAllChildrenRecursive(tenantKey));
+        tenantsWithLep.addAll(tenants);
+        tenants.forEach(pathsWithoutLep::remove);
+    }
+
 }
@@ -9,6 +9,8 @@ import tools.jackson.dataformat.yaml.YAMLFactory;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 import com.icthh.xm.commons.config.domain.Configuration;
 import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache.DocumentFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,6 +36,17 @@ public class RoleNameProcessor implements TenantConfigurationProcessor {
     private final AntPathMatcher matcher = new AntPathMatcher();
     private final ObjectMapper mapper = YAMLMapper.builder().build();
     private final ApplicationProperties applicationProperties;
+    private final ParsedDocumentCache documentCache;
+
+    @Override
+    public List<String> getSupportedPathPatterns() {
+        return List.of(ROLE_CONFIG_PATH);
+    }
+
+    @Override
+    public Set<String> getSupportedExtensions() {
+        return Set.of("yml");
+    }
 
     @Override
     public boolean isSupported(Configuration configuration) {
@@ -50,7 +63,7 @@ public class RoleNameProcessor implements TenantConfigurationProcessor {
                                                     Set<Configuration> configToReprocess,
                                                     Map<String, Set<Configuration>> externalConfigs) {
         try {
-            Map<String, Map<String, Object>> roles = mapper.readValue(configuration.getContent(), Map.class);
+            Map<String, Map<String, Object>> roles = documentCache.readValue(configuration.getContent(), DocumentFormat.YAML, Map.class);
             var rolesWithName = roles.entrySet().stream().filter(it -> it.getValue().containsKey("name")).collect(toList());
             if (rolesWithName.isEmpty()) {
                 return emptyList();
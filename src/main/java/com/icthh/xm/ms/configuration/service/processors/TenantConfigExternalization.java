@@ -5,6 +5,9 @@ import tools.jackson.databind.ObjectMapper;
 import tools.jackson.dataformat.yaml.YAMLFactory;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache.DocumentFormat;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -31,13 +34,20 @@ import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 @Slf4j
 @Component
 @Order(LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
 public class TenantConfigExternalization implements TenantConfigurationProcessor {
 
     private final AntPathMatcher matcher = new AntPathMatcher();
     private final ObjectMapper mapper = YAMLMapper.builder().build();
+    private final ParsedDocumentCache documentCache;
     private static final String TENANT_NAME = "tenantName";
     private final Map<String, String> env = getenv();
 
+    @Override
+    public List<String> getSupportedPathPatterns() {
+        return List.of(DEFAULT_TENANT_CONFIG_PATTERN);
+    }
+
     @Override
     public boolean isSupported(Configuration configuration) {
         return matcher.match(DEFAULT_TENANT_CONFIG_PATTERN, configuration.getPath());
@@ -52,7 +62,8 @@ public class TenantConfigExternalization implements TenantConfigurationProcessor
                                                     Map<String, Set<Configuration>> externalConfigs) {
         String tenant = matcher.extractUriTemplateVariables(DEFAULT_TENANT_CONFIG_PATTERN, configuration.getPath()).get(TENANT_NAME);
         String content = targetStorage.getOrDefault(configuration.getPath(), configuration).getContent();
-        Map<String, Object> configMap = mapper.readValue(content, new TypeReference<Map<String, Object>>() {
+        Map<String, Object> configMap = documentCache.readValue(content, DocumentFormat.YAML,
+                                                                new TypeReference<Map<String, Object>>() {
         });
 
         if (configMap != null && isEnvPresent(tenant + "_")) {
@@ -1,17 +1,25 @@
 package com.icthh.xm.ms.configuration.service.processors;
 
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.icthh.xm.commons.config.domain.Configuration;
 import com.icthh.xm.ms.configuration.repository.impl.ConfigState.IntermediateConfigState;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Processor of tenant configurations applied by in-memory storage.
+ * <p>
+ * Thread-safety: with {@code application.memory-storage.parallel-processing-enabled} tenants are processed
+ * in parallel, so methods of one processor are called concurrently for different tenants. All configurations
+ * of one tenant, including {@link #processTenantBatch(String, Runnable)}, are processed on a single thread.
+ * State shared between tenants must be thread-safe (concurrent collections), per-batch state must be kept
+ * in thread locals or in the processed tenant state.
+ */
 public interface TenantConfigurationProcessor {
 
     Logger log = LoggerFactory.getLogger(TenantConfigurationProcessor.class);
@@ -21,8 +29,34 @@ public interface TenantConfigurationProcessor {
         return DEFAULT_PRIORITY;
     }
 
+    /**
+     * Cheap pre-filter applied before {@link #isSupported(Configuration)}.
+     * @return file extensions (lower case, without dot) the processor works with, empty set means any file
+     */
+    default Set<String> getSupportedExtensions() {
+        return Set.of();
+    }
+
+    /**
+     * Declarative selector applied before {@link #isSupported(Configuration)}.
+     * @return ant patterns of paths the processor works with, empty list means any path
+     */
+    default List<String> getSupportedPathPatterns() {
+        return List.of();
+    }
+
     boolean isSupported(Configuration configuration);
 
+    /**
+     * Wraps processing of all changed configurations of one tenant, allows processor to prepare
+     * expensive context once per tenant instead of once per configuration.
+     * @param tenant key of processed tenant state
+     * @param batch processing of tenant configurations
+     */
+    default void processTenantBatch(String tenant, Runnable batch) {
+        batch.run();
+    }
+
     List<Configuration> processConfiguration(Configuration configuration,
                                              Map<String, Configuration> originalStorage,
                                              Map<String, Configuration> targetStorage,
@@ -41,7 +75,16 @@ public interface TenantConfigurationProcessor {
             var processed = state.getProcessedConfiguration();
             var inMemory = state.getInmemoryConfigurations();
             var configurations = processConfiguration(configuration, inMemory, processed, configToReprocess, external);
-            return configurations.stream().collect(toMap(Configuration::getPath, identity()));
+            if (configurations.isEmpty()) {
+                return Map.of();
+            }
+            Map<String, Configuration> result = new HashMap<>();
+            for (Configuration processedConfiguration : configurations) {
+                if (result.put(processedConfiguration.getPath(), processedConfiguration) != null) {
+                    throw new IllegalStateException("Duplicate processed configuration " + processedConfiguration.getPath());
+                }
+            }
+            return result;
         } catch (Exception e) {
             log.error("Error run processor", e);
         }
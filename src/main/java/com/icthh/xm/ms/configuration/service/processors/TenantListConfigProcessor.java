@@ -4,6 +4,8 @@ import tools.jackson.core.type.TypeReference;
 import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.json.JsonMapper;
 import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache.DocumentFormat;
 import com.icthh.xm.commons.config.domain.TenantState;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,13 +24,21 @@ public class TenantListConfigProcessor implements TenantConfigurationProcessor {
 
     private final ObjectMapper mapper = JsonMapper.builder().build();
     private final String applicationName;
+    private final ParsedDocumentCache documentCache;
     public final Map<String, List<TenantState>> tenantListStub;
 
-    public TenantListConfigProcessor(@Value("${spring.application.name}") String applicationName) {
+    public TenantListConfigProcessor(@Value("${spring.application.name}") String applicationName,
+                                     ParsedDocumentCache documentCache) {
         this.applicationName = applicationName;
+        this.documentCache = documentCache;
         this.tenantListStub = Map.of(applicationName, List.of(new TenantState("XM", "ACTIVE")));
     }
 
+    @Override
+    public List<String> getSupportedPathPatterns() {
+        return List.of(TENANTS_LIST_CONFIG_KEY);
+    }
+
     @Override
     public boolean isSupported(Configuration configuration) {
         return TENANTS_LIST_CONFIG_KEY.equals(configuration.getPath());
@@ -41,7 +51,8 @@ public class TenantListConfigProcessor implements TenantConfigurationProcessor {
                                                     Set<Configuration> configToReprocess,
                                                     Map<String, Set<Configuration>> externalConfigs) {
         try {
-            Map<String, List<TenantState>> appToTenantsMap = mapper.readValue(configuration.getContent(), new TypeReference<>() {
+            Map<String, List<TenantState>> appToTenantsMap = documentCache.readValue(configuration.getContent(),
+                                                                                     DocumentFormat.JSON, new TypeReference<>() {
             });
             List<TenantState> tenants = appToTenantsMap.getOrDefault(applicationName, List.of());
             if (tenants.isEmpty()) {
@@ -128,6 +128,17 @@ public final class ConfigPathUtils {
             .collect(toSet());
     }
 
+    /**
+     * @return extension of the file name in lower case without dot, or empty string if file has no extension
+     */
+    public static String getFileExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) {
+            return "";
+        }
+        return path.substring(dot + 1).toLowerCase();
+    }
+
     public String printPathsWithLimit(Collection<String> paths) {
         if (paths != null) {
             List<String> result = paths.stream().limit(MAX_PATHS_TO_PRINT).collect(toList());
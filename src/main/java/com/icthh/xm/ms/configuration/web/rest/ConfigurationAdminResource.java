@@ -167,6 +167,7 @@ public class ConfigurationAdminResource {
 
     @SneakyThrows
     private String convertToJson(String yml) {
+        // request payload is parsed directly, it must not evict configurations from the shared document cache
         MapType type = createDefaultInstance().constructMapType(HashMap.class, String.class, Object.class);
         Map<String, Object> properties = this.ymlmapper.readValue(yml, type);
         return this.jsonMapper.writeValueAsString(properties);
@@ -225,6 +226,14 @@ public class ConfigurationAdminResource {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping(value = CONFIG + FETCH, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasPermission({'request': #request}, 'CONFIG.ADMIN.FETCH')")
+    @PrivilegeDescription("Privilege to fetch changes of configuration repository")
+    public ResponseEntity<Void> fetchConfiguration(HttpServletRequest request) {
+        configurationService.fetchConfiguration();
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping(value = CONFIG + "/zip", consumes = MULTIPART_FORM_DATA_VALUE)
     @SneakyThrows
     @PreAuthorize("hasPermission({'files': #files, 'tenant': #tenant}, 'CONFIG.ADMIN.UPDATE_BY_ZIP')")
@@ -0,0 +1,81 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigPathTrieUnitTest extends AbstractUnitTest {
+
+    private static final List<String> PATHS = List.of(
+        "/config/tenants/tenant-list.json",
+        "/config/tenants/XM/roles.yml",
+        "/config/tenants/XM/webapp/settings-public.yml",
+        "/config/tenants/XM/webapp/public/translations/en/common.json",
+        "/config/tenants/DEMO/roles.yml",
+        "/config/tenants/DEMO/entity/xmentityspec.yml",
+        "/config/tenants/DEMO/entity/xmentityspec/types.yml",
+        "/config/tenants/commons/lep/Commons$$common.groovy"
+    );
+
+    private static final List<String> PATTERNS = List.of(
+        "/config/tenants/XM/roles.yml",
+        "/config/tenants/*/roles.yml",
+        "/config/tenants/XM/**",
+        "/config/tenants/DEMO/entity/**/*.yml",
+        "/config/tenants/{tenant}/webapp/*.yml",
+        "/config/tenants/XM/webapp/public/translations/?n/*.json",
+        "/config/**",
+        "/**/*.groovy",
+        "/config/tenants/UNKNOWN/**",
+        "config/tenants/XM/roles.yml"
+    );
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Test
+    void findCandidates_givesSameMatchesAsFullScan() {
+        ConfigPathTrie trie = new ConfigPathTrie();
+        PATHS.forEach(trie::add);
+
+        for (String pattern : PATTERNS) {
+            Set<String> expected = PATHS.stream().filter(path -> matcher.match(pattern, path)).collect(Collectors.toSet());
+            Set<String> actual = trie.findCandidates(pattern).stream()
+                .filter(path -> matcher.match(pattern, path))
+                .collect(Collectors.toSet());
+            assertThat(actual).as(pattern).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void findCandidates_walksOnlyLiteralPrefix() {
+        ConfigPathTrie trie = new ConfigPathTrie();
+        PATHS.forEach(trie::add);
+
+        assertThat(trie.findCandidates("/config/tenants/DEMO/**")).containsExactlyInAnyOrder(
+            "/config/tenants/DEMO/roles.yml",
+            "/config/tenants/DEMO/entity/xmentityspec.yml",
+            "/config/tenants/DEMO/entity/xmentityspec/types.yml"
+        );
+        assertThat(trie.findCandidates("/config/tenants/UNKNOWN/**")).isEmpty();
+    }
+
+    @Test
+    void remove_prunesPathAndKeepsSiblings() {
+        ConfigPathTrie trie = new ConfigPathTrie();
+        PATHS.forEach(trie::add);
+
+        trie.remove("/config/tenants/DEMO/entity/xmentityspec/types.yml");
+        trie.remove("/config/tenants/DEMO/entity");
+
+        assertThat(trie.findCandidates("/config/tenants/DEMO/**")).containsExactlyInAnyOrder(
+            "/config/tenants/DEMO/roles.yml",
+            "/config/tenants/DEMO/entity/xmentityspec.yml"
+        );
+    }
+}
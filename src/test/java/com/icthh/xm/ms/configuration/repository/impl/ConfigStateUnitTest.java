@@ -0,0 +1,102 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import com.icthh.xm.ms.configuration.repository.impl.ConfigState.IntermediateConfigState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigStateUnitTest extends AbstractUnitTest {
+
+    private static final String TENANT = "XM";
+    private static final String ROLES = "/config/tenants/XM/roles.yml";
+    private static final String SETTINGS = "/config/tenants/XM/webapp/settings-public.yml";
+
+    @Test
+    void processedConfiguration_overridesInmemoryConfiguration() {
+        IntermediateConfigState intermediate = new ConfigState(TENANT).toIntermediateConfigState();
+        intermediate.updateConfigurations(Map.of(
+            ROLES, new Configuration(ROLES, "raw"),
+            SETTINGS, new Configuration(SETTINGS, "settings")
+        ));
+        Configuration roles = new Configuration(ROLES, "raw");
+        intermediate.addProcessedConfiguration(roles, Map.of(ROLES, new Configuration(ROLES, "processed")));
+
+        ConfigState state = new ConfigState(intermediate);
+
+        assertThat(state.getProcessedConfiguration()).hasSize(2);
+        assertThat(state.getProcessedConfiguration().get(ROLES).getContent()).isEqualTo("processed");
+        assertThat(state.getProcessedConfiguration().get(SETTINGS).getContent()).isEqualTo("settings");
+        assertThat(state.getProcessedConfiguration()).isSameAs(state.getProcessedConfiguration());
+    }
+
+    @Test
+    void nextState_doesNotChangePreviousState() {
+        IntermediateConfigState intermediate = new ConfigState(TENANT).toIntermediateConfigState();
+        intermediate.updateConfigurations(Map.of(ROLES, new Configuration(ROLES, "v1")));
+        ConfigState first = new ConfigState(intermediate);
+
+        IntermediateConfigState next = first.toIntermediateConfigState();
+        next.updateConfigurations(Map.of(
+            ROLES, new Configuration(ROLES, ""),
+            SETTINGS, new Configuration(SETTINGS, "settings")
+        ));
+        ConfigState second = new ConfigState(next);
+
+        assertThat(first.getInmemoryConfigurations()).containsOnlyKeys(ROLES);
+        assertThat(first.getProcessedConfiguration().get(ROLES).getContent()).isEqualTo("v1");
+        assertThat(second.getInmemoryConfigurations()).containsOnlyKeys(SETTINGS);
+        assertThat(second.getProcessedConfiguration()).containsOnlyKeys(SETTINGS);
+    }
+
+    @Test
+    void nextState_sharesUnchangedConfigurations() {
+        IntermediateConfigState intermediate = new ConfigState(TENANT).toIntermediateConfigState();
+        intermediate.updateConfigurations(Map.of(
+            ROLES, new Configuration(ROLES, "roles"),
+            SETTINGS, new Configuration(SETTINGS, "v1")
+        ));
+        ConfigState first = new ConfigState(intermediate);
+
+        IntermediateConfigState next = first.toIntermediateConfigState();
+        next.updateConfigurations(Map.of(SETTINGS, new Configuration(SETTINGS, "v2")));
+        ConfigState second = new ConfigState(next);
+
+        assertThat(second.getInmemoryConfigurations().get(ROLES)).isSameAs(first.getInmemoryConfigurations().get(ROLES));
+        assertThat(second.getProcessedConfiguration().get(ROLES)).isSameAs(first.getProcessedConfiguration().get(ROLES));
+        assertThat(second.getProcessedConfiguration().get(SETTINGS).getContent()).isEqualTo("v2");
+        assertThat(next.getChangedFiles()).containsOnlyKeys(SETTINGS);
+    }
+
+    @Test
+    void producedByFile_resolvesSourceOfManyDerivedFiles() {
+        String specPath = "/config/tenants/XM/entity/xmentityspec.yml";
+        int derivedFilesCount = 5_000;
+        IntermediateConfigState intermediate = new ConfigState(TENANT).toIntermediateConfigState();
+        Configuration spec = new Configuration(specPath, "spec");
+        intermediate.updateConfigurations(Map.of(specPath, spec));
+        Map<String, Configuration> derived = IntStream.range(0, derivedFilesCount)
+            .mapToObj(i -> "/config/tenants/XM/entity/derived/type-" + i + ".json")
+            .collect(toMap(identity(), path -> new Configuration(path, "{}")));
+        intermediate.addProcessedConfiguration(spec, derived);
+        intermediate.addProcessedConfiguration(new Configuration(ROLES, "roles"), Map.of(ROLES, new Configuration(ROLES, "p")));
+
+        derived.keySet().forEach(path -> assertThat(intermediate.getProducedByFile(path)).contains(specPath));
+        assertThat(intermediate.getProducedByFile(ROLES)).contains(ROLES);
+        assertThat(intermediate.getProducedByFile(SETTINGS)).isEmpty();
+
+        IntermediateConfigState next = new ConfigState(intermediate).toIntermediateConfigState();
+        next.cleanProcessedConfiguration(List.of(specPath));
+
+        assertThat(next.getProducedByFile("/config/tenants/XM/entity/derived/type-1.json")).isEmpty();
+        assertThat(next.getSourceByProducedFile()).containsOnlyKeys(ROLES);
+        assertThat(intermediate.getProducedByFile("/config/tenants/XM/entity/derived/type-1.json")).contains(specPath);
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -24,6 +25,7 @@ import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import software.amazon.awssdk.services.s3.S3Client;
 
 public class DynamicConfigRepositoryUnitTest {
@@ -117,6 +119,21 @@ public class DynamicConfigRepositoryUnitTest {
         verify(s3Repository).setRepositoryState(S_3_CONFIGS);
     }
 
+    @Test
+    public void testSetRepositoryStateStreamsConfigurationsOfHighestPriorityRepository() {
+        var allConfigs = Stream.concat(S_3_CONFIGS.stream(), J_GIT_CONFIGS.stream());
+        doAnswer(invocation -> {
+            Stream<Configuration> configurations = invocation.getArgument(0);
+            assertEquals(S_3_CONFIGS, configurations.toList());
+            return S_3_VERSION;
+        }).when(s3Repository).setRepositoryState(ArgumentMatchers.<Stream<Configuration>>any());
+
+        repository.setRepositoryState(allConfigs);
+        verify(s3Repository).setRepositoryState(ArgumentMatchers.<Stream<Configuration>>any());
+        verify(s3Repository, never()).setRepositoryState(anyList());
+        verify(jGitRepository).setRepositoryState(J_GIT_CONFIGS);
+    }
+
     @Test
     public void testFindAllInTenantReturnsAllConfigurations() {
         var tenantKey = "tenant1";
@@ -174,6 +191,20 @@ public class DynamicConfigRepositoryUnitTest {
         verify(s3Repository).recloneConfiguration();
     }
 
+    @Test
+    public void testFetchDelegatesToAllRepositories() {
+        repository.fetch();
+        verify(jGitRepository).fetch();
+        verify(s3Repository).fetch();
+    }
+
+    @Test
+    public void testFetchVersionDelegatesToJGitRepository() {
+        repository.fetch(J_GIT_VERSION);
+        verify(jGitRepository).fetch(J_GIT_VERSION);
+        verify(s3Repository, never()).fetch(J_GIT_VERSION);
+    }
+
     private static Configuration findConfig1(List<Configuration> actualConfigurations) {
         return actualConfigurations.stream()
                 .filter(conf -> CONFIG_1_PATH.equals(conf.getPath()))
@@ -11,9 +11,12 @@ import com.icthh.xm.ms.configuration.config.ApplicationProperties;
 import com.icthh.xm.ms.configuration.config.ApplicationProperties.GitProperties;
 import com.icthh.xm.ms.configuration.domain.ConfigVersion;
 import com.icthh.xm.ms.configuration.domain.ConfigurationList;
+import com.icthh.xm.ms.configuration.service.ConcurrentConfigModificationException;
 import com.icthh.xm.ms.configuration.service.FileService;
 import lombok.SneakyThrows;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.RefSpec;
 import org.junit.Rule;
 import org.junit.jupiter.api.Test;
 import org.junit.rules.TemporaryFolder;
@@ -25,13 +28,21 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.StreamSupport;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static com.icthh.xm.ms.configuration.config.LocalJGitRepositoryConfiguration.createGitRepository;
 import static com.icthh.xm.ms.configuration.config.LocalJGitRepositoryConfiguration.createGitRepositoryTest;
+import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
 
 public class JGitRepositoryIntTest {
 
@@ -52,6 +63,8 @@ public class JGitRepositoryIntTest {
     XmAuthenticationContextHolder authenticationContextHolder = new SpringSecurityXmAuthenticationContextHolder();
     XmRequestContextHolder requestContextHolder = new PrototypeXmRequestContextHolder();
 
+    private final ReentrantLock lock = new ReentrantLock();
+
     private JGitRepository jGitRepository;
 
     @Test
@@ -65,6 +78,20 @@ public class JGitRepositoryIntTest {
         assertEquals("2", jGitRepository.find(path, ref).getContent());
     }
 
+    @Test
+    public void testGetByVersion_shouldReadCachedContentWithoutLock() throws Exception {
+        gitProperties.setMaxWaitTimeSecond(1);
+        setUpRepositories(gitProperties);
+        String path = "/config/test.file";
+        ConfigVersion ref = jGitRepository.save(new Configuration(path, "1"));
+        jGitRepository.save(new Configuration(path, "2"));
+        assertEquals("1", jGitRepository.find(path, ref).getContent());
+
+        CompletableFuture.runAsync(lock::lock).get(10, TimeUnit.SECONDS);
+        assertEquals("1", jGitRepository.find(path, ref).getContent());
+        assertThrows(IllegalMonitorStateException.class, () -> jGitRepository.find(path, jGitRepository.getCurrentVersion()));
+    }
+
     @Test
     public void test() throws IOException {
         applicationProperties.setBinaryFileTypes(List.of(".docx"));
@@ -118,6 +145,316 @@ public class JGitRepositoryIntTest {
         assertEquals(2, all2.getData().size());
     }
 
+    @Test
+    public void testFindInDirectoryFromObjectDatabase() {
+        gitProperties.setReadFromObjectDatabase(true);
+        setUpRepositories(gitProperties);
+        String path1 = "/config/tenants/TENANT1/somefile";
+        String path2 = "/config/tenants/TENANT2/somefile";
+        jGitRepository.save(new Configuration(path1, "tenant1_content"));
+        jGitRepository.save(new Configuration(path2, "tenant2_content"));
+
+        ConfigurationList tenant1 = jGitRepository.findAllInTenants(Set.of("TENANT1"));
+        assertEquals(List.of(new Configuration(path1, "tenant1_content")), tenant1.getData());
+
+        jGitRepository.save(new Configuration(path2, "tenant2_updated"));
+        ConfigurationList all = jGitRepository.findAll();
+        assertEquals(Set.of(new Configuration(path1, "tenant1_content"), new Configuration(path2, "tenant2_updated")),
+            Set.copyOf(all.getData()));
+        assertEquals(jGitRepository.getCurrentVersion(), all.getVersion());
+    }
+
+    @Test
+    public void testFindChanges() {
+        setUpRepositories(gitProperties);
+        String path1 = "/config/tenants/TENANT1/somefile";
+        String path2 = "/config/tenants/TENANT2/somefile";
+        ConfigVersion from = jGitRepository.save(new Configuration(path1, "tenant1_content"));
+        jGitRepository.save(new Configuration(path2, "tenant2_content"));
+        ConfigVersion to = jGitRepository.deleteAll(List.of(path1));
+
+        ConfigurationList changes = jGitRepository.findChanges(from).orElseThrow();
+
+        assertEquals(to, changes.getVersion());
+        assertEquals(Set.of(new Configuration(path1, ""), new Configuration(path2, "tenant2_content")),
+            Set.copyOf(changes.getData()));
+        assertEquals(List.of(), jGitRepository.findChanges(to).orElseThrow().getData());
+        assertEquals(Optional.empty(), jGitRepository.findChanges(new ConfigVersion("0123456789012345678901234567890123456789")));
+    }
+
+    @Test
+    public void testHasVersion() {
+        setUpRepositories(gitProperties);
+        ConfigVersion initial = jGitRepository.findAll().getVersion();
+        ConfigVersion saved = jGitRepository.save(new Configuration("/config/tenants/TENANT1/somefile", "content"));
+        ConfigVersion unknown = new ConfigVersion("0123456789012345678901234567890123456789");
+
+        assertTrue(jGitRepository.hasVersion(initial));
+        assertFalse(jGitRepository.hasVersion(saved));
+        assertFalse(jGitRepository.hasVersion(unknown));
+        assertFalse(jGitRepository.hasVersion(unknown));
+
+        jGitRepository.findAllInTenants(Set.of("TENANT1"));
+        assertFalse(jGitRepository.hasVersion(saved));
+        jGitRepository.findChanges(initial);
+        assertTrue(jGitRepository.hasVersion(saved));
+        assertTrue(jGitRepository.hasVersion(new ConfigVersion(saved.getMainVersion().substring(0, 10))));
+    }
+
+    @Test
+    public void testReclone_shouldResetKnownCommits() {
+        setUpRepositories(gitProperties);
+        ConfigVersion version = jGitRepository.findAll().getVersion();
+        assertTrue(jGitRepository.hasVersion(version));
+
+        jGitRepository.recloneConfiguration();
+        assertFalse(jGitRepository.hasVersion(version));
+
+        assertEquals(version, jGitRepository.findAll().getVersion());
+        assertTrue(jGitRepository.hasVersion(version));
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        gitProperties.setGroupCommitWindowMillis(500);
+        setUpRepositories(gitProperties);
+        String path1 = "/config/tenants/TENANT1/somefile";
+        String path2 = "/config/tenants/TENANT2/somefile";
+        ConfigVersion initial = jGitRepository.getCurrentVersion();
+
+        CompletableFuture<ConfigVersion> first = jGitRepository.saveAllAsync(
+            List.of(new Configuration(path1, "tenant1_content")), Map.of());
+        CompletableFuture<ConfigVersion> second = jGitRepository.saveAllAsync(
+            List.of(new Configuration(path2, "tenant2_content")), Map.of(path1, sha1Hex("tenant1_content")));
+        assertThrows(ConcurrentConfigModificationException.class, () -> jGitRepository.saveAllAsync(
+            List.of(new Configuration(path1, "other")), Map.of(path1, sha1Hex("stale"))));
+
+        ConfigVersion version = first.get(10, TimeUnit.SECONDS);
+        assertEquals(version, second.get(10, TimeUnit.SECONDS));
+        assertEquals(Set.of(new Configuration(path1, "tenant1_content"), new Configuration(path2, "tenant2_content")),
+            Set.copyOf(jGitRepository.findChanges(initial).orElseThrow().getData()));
+        assertEquals(version, jGitRepository.getCurrentVersion());
+        try (Git git = Git.open(configGitFolder.getRoot())) {
+            RevCommit head = git.log().setMaxCount(1).call().iterator().next();
+            assertEquals(initial.getMainVersion(), head.getParent(0).getName());
+        }
+    }
+
+    @Test
+    public void testGroupCommit_shouldMergeChangesPushedDuringWindow() throws Exception {
+        gitProperties.setGroupCommitWindowMillis(2000);
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        String externalPath = "/config/tenants/TENANT2/somefile";
+
+        CompletableFuture<ConfigVersion> saved = jGitRepository.saveAllAsync(
+            List.of(new Configuration(path, "content")), Map.of());
+        try (Git git = Git.open(initTestGitFolder.getRoot())) {
+            File file = new File(initTestGitFolder.getRoot(), externalPath);
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "external");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("external commit").call();
+            git.push().setRefSpecs(new RefSpec("test")).call();
+        }
+
+        ConfigVersion version = saved.get(10, TimeUnit.SECONDS);
+        assertEquals("content", jGitRepository.find(path, version).getContent());
+        assertEquals(Set.of(new Configuration(path, "content"), new Configuration(externalPath, "external")),
+            Set.copyOf(jGitRepository.findAll().getData()));
+        try (Git git = Git.open(serverGitFolder.getRoot())) {
+            assertEquals(jGitRepository.getCurrentVersion().getMainVersion(),
+                git.getRepository().resolve(gitProperties.getBranchName()).getName());
+        }
+    }
+
+    @Test
+    public void testGroupCommit_shouldNotWriteBatchWithConflict() throws Exception {
+        gitProperties.setGroupCommitWindowMillis(500);
+        setUpRepositories(gitProperties);
+        String path1 = "/config/tenants/TENANT1/somefile";
+        String path2 = "/config/tenants/TENANT2/somefile";
+        jGitRepository.saveAll(List.of(new Configuration(path2, "existing")), Map.of());
+
+        assertThrows(ConcurrentConfigModificationException.class, () -> jGitRepository.saveAllAsync(
+            List.of(new Configuration(path1, "content1"), new Configuration(path2, "content2")),
+            Map.of(path2, sha1Hex("stale"))));
+
+        assertFalse(new File(configGitFolder.getRoot(), path1).exists());
+        try (Git git = Git.open(configGitFolder.getRoot())) {
+            assertTrue(git.status().call().isClean());
+        }
+    }
+
+    @Test
+    public void testSave_shouldThrowConflictWhenPushRejected() throws Exception {
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        ConfigVersion initial = jGitRepository.getCurrentVersion();
+
+        // locked branch of the remote repository rejects the push, as a branch changed after pull does
+        File branchLock = new File(serverGitFolder.getRoot(), "refs/heads/" + gitProperties.getBranchName() + ".lock");
+        assertTrue(branchLock.createNewFile());
+        assertThrows(ConcurrentConfigModificationException.class, () -> jGitRepository.saveAll(
+            List.of(new Configuration(path, "content")), Map.of()));
+
+        assertEquals(initial, jGitRepository.getCurrentVersion());
+        assertFalse(new File(configGitFolder.getRoot(), path).exists());
+        try (Git git = Git.open(configGitFolder.getRoot())) {
+            assertTrue(git.status().call().isClean());
+        }
+    }
+
+    @Test
+    public void testSave_shouldCommitOnlyTouchedPaths() throws Exception {
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        String untouchedPath = "/config/tenants/TENANT2/somefile";
+        File untouched = new File(configGitFolder.getRoot(), untouchedPath);
+        untouched.getParentFile().mkdirs();
+        Files.writeString(untouched.toPath(), "not saved");
+
+        ConfigVersion saved = jGitRepository.save(new Configuration(path, "content"));
+        ConfigVersion deleted = jGitRepository.deleteAll(List.of("/config/tenants/TENANT1"));
+
+        assertEquals("content", jGitRepository.find(path, saved).getContent());
+        assertEquals(null, jGitRepository.find(untouchedPath, saved).getContent());
+        assertEquals(null, jGitRepository.find(path, deleted).getContent());
+        try (Git git = Git.open(configGitFolder.getRoot())) {
+            assertEquals(Set.of(untouchedPath.substring(1)), git.status().call().getUntracked());
+        }
+    }
+
+    @Test
+    public void testBareRepository() throws Exception {
+        gitProperties.setBare(true);
+        setUpRepositories(gitProperties);
+        String path1 = "/config/tenants/TENANT1/somefile";
+        String path2 = "/config/tenants/TENANT1/folder/somefile";
+        ConfigVersion initial = jGitRepository.getCurrentVersion();
+
+        ConfigVersion saved = jGitRepository.saveAll(List.of(new Configuration(path1, "content1"),
+            new Configuration(path2, "content2")), Map.of());
+        assertEquals(saved, jGitRepository.saveAll(List.of(new Configuration(path1, "content1")), Map.of()));
+        assertThrows(ConcurrentConfigModificationException.class, () -> jGitRepository.saveAll(
+            List.of(new Configuration(path1, "other")), Map.of(path1, sha1Hex("stale"))));
+        ConfigVersion updated = jGitRepository.saveAll(List.of(new Configuration(path1, "updated")),
+            Map.of(path1, sha1Hex("content1")));
+        ConfigVersion deleted = jGitRepository.deleteAll(List.of("/config/tenants/TENANT1/folder"));
+
+        assertEquals(List.of(new Configuration(path1, "updated")),
+            jGitRepository.findAllInTenants(Set.of("TENANT1")).getData());
+        assertEquals("updated", jGitRepository.find(path1).getContent());
+        assertEquals("content2", jGitRepository.find(path2, updated).getContent());
+        assertEquals(null, jGitRepository.find(path2, deleted).getContent());
+        assertEquals(Set.of(new Configuration(path1, "updated")),
+            Set.copyOf(jGitRepository.findChanges(initial).orElseThrow().getData()));
+        assertFalse(new File(configGitFolder.getRoot(), "config").exists());
+        try (Git git = Git.open(serverGitFolder.getRoot())) {
+            assertEquals(deleted.getMainVersion(), git.getRepository().resolve(gitProperties.getBranchName()).getName());
+        }
+    }
+
+    @Test
+    public void testBareRepository_shouldNotMoveBranchWhenPushRejected() throws Exception {
+        gitProperties.setBare(true);
+        gitProperties.setBackgroundFetchIntervalSeconds(3600);
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        ConfigVersion initial = jGitRepository.findAll().getVersion();
+
+        // locked branch of the remote repository rejects every push
+        File branchLock = new File(serverGitFolder.getRoot(), "refs/heads/" + gitProperties.getBranchName() + ".lock");
+        assertTrue(branchLock.createNewFile());
+        assertThrows(IllegalStateException.class, () -> jGitRepository.saveAll(
+            List.of(new Configuration(path, "content")), Map.of()));
+
+        assertEquals(initial, jGitRepository.getCurrentVersion());
+        assertEquals(List.of(), jGitRepository.findAll().getData());
+
+        assertTrue(branchLock.delete());
+        ConfigVersion saved = jGitRepository.saveAll(List.of(new Configuration(path, "content")), Map.of());
+        assertEquals(saved, jGitRepository.getCurrentVersion());
+        try (Git git = Git.open(serverGitFolder.getRoot())) {
+            assertEquals(saved.getMainVersion(), git.getRepository().resolve(gitProperties.getBranchName()).getName());
+        }
+    }
+
+    @Test
+    public void testBackgroundFetch_shouldReadFetchedState() throws Exception {
+        gitProperties.setBackgroundFetchIntervalSeconds(3600);
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        ConfigVersion initial = jGitRepository.getCurrentVersion();
+
+        ConfigVersion pushed;
+        try (Git git = Git.open(initTestGitFolder.getRoot())) {
+            File file = new File(initTestGitFolder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "content");
+            git.add().addFilepattern(".").call();
+            pushed = new ConfigVersion(git.commit().setMessage("external commit").call().getName());
+            git.push().setRefSpecs(new RefSpec("test")).call();
+        }
+
+        assertEquals(initial, jGitRepository.findAll().getVersion());
+        assertEquals(List.of(), jGitRepository.findAll().getData());
+        assertEquals("content", jGitRepository.find(path, pushed).getContent());
+
+        jGitRepository.fetch();
+        assertFalse(jGitRepository.hasVersion(pushed));
+        assertEquals(pushed, jGitRepository.findAll().getVersion());
+        assertEquals(List.of(new Configuration(path, "content")), jGitRepository.findAll().getData());
+        assertTrue(jGitRepository.hasVersion(pushed));
+    }
+
+    @Test
+    public void testBackgroundFetch_shouldFetchUnknownVersion() throws Exception {
+        gitProperties.setBackgroundFetchIntervalSeconds(3600);
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+        ConfigVersion initial = jGitRepository.findAll().getVersion();
+
+        ConfigVersion pushed;
+        try (Git git = Git.open(initTestGitFolder.getRoot())) {
+            File file = new File(initTestGitFolder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "content");
+            git.add().addFilepattern(".").call();
+            pushed = new ConfigVersion(git.commit().setMessage("external commit").call().getName());
+            git.push().setRefSpecs(new RefSpec("test")).call();
+        }
+
+        jGitRepository.fetch(initial);
+        assertEquals(Optional.of(List.of()), jGitRepository.findChanges(initial).map(ConfigurationList::getData));
+
+        jGitRepository.fetch(pushed);
+        assertEquals(pushed, jGitRepository.findChanges(initial).orElseThrow().getVersion());
+        assertTrue(jGitRepository.hasVersion(pushed));
+    }
+
+    @Test
+    public void testBackgroundFetch_shouldBeDisabledWhenRecloneEnabled() throws Exception {
+        gitProperties.setBackgroundFetchIntervalSeconds(3600);
+        gitProperties.setCloneRepositoryOnUpdate(true);
+        setUpRepositories(gitProperties);
+        String path = "/config/tenants/TENANT1/somefile";
+
+        ConfigVersion pushed;
+        try (Git git = Git.open(initTestGitFolder.getRoot())) {
+            File file = new File(initTestGitFolder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "content");
+            git.add().addFilepattern(".").call();
+            pushed = new ConfigVersion(git.commit().setMessage("external commit").call().getName());
+            git.push().setRefSpecs(new RefSpec("test")).call();
+        }
+
+        // read pulls as without background fetch
+        assertEquals(pushed, jGitRepository.findAll().getVersion());
+        assertEquals(List.of(new Configuration(path, "content")), jGitRepository.findAll().getData());
+    }
+
     @Test
     public void testDepth_shouldCloneAllCommitsWhenDepthMinusOne() {
         setUpRepositories(gitProperties);
@@ -144,7 +481,7 @@ public class JGitRepositoryIntTest {
     private void setUpRepositories(GitProperties gitProps) {
         createGitRepository(serverGitFolder, initTestGitFolder, gitProps);
 
-        jGitRepository = new JGitRepository(gitProps, new ReentrantLock(),
+        jGitRepository = new JGitRepository(gitProps, lock,
             tenantContextHolder, authenticationContextHolder,
             requestContextHolder, fileService) {
             @Override
@@ -0,0 +1,205 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import com.icthh.xm.ms.configuration.service.TenantAliasTreeStorage;
+import com.icthh.xm.ms.configuration.service.processors.TenantConfigurationProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class MemoryConfigStorageImplUnitTest extends AbstractUnitTest {
+
+    private MemoryConfigStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        TenantContextHolder tenantContextHolder = mock(TenantContextHolder.class);
+        TenantAliasTreeStorage aliasTreeStorage = new TenantAliasTreeStorage(tenantContextHolder);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        storage = new MemoryConfigStorageImpl(List.of(), List.of(), aliasTreeStorage, applicationProperties, new ReentrantLock());
+    }
+
+    @Test
+    void processedConfigs_containsAllTenantsAfterPartialUpdate() {
+        storage.saveConfigs(List.of(
+            new Configuration("/config/tenants/A/a.yml", "a"),
+            new Configuration("/config/tenants/B/b.yml", "b")
+        ));
+
+        storage.saveConfigs(List.of(new Configuration("/config/tenants/A/a.yml", "a2")));
+
+        Map<String, Configuration> processed = storage.getProcessedConfigs();
+        assertThat(processed).hasSize(2);
+        assertThat(processed.get("/config/tenants/A/a.yml").getContent()).isEqualTo("a2");
+        assertThat(processed.get("/config/tenants/B/b.yml").getContent()).isEqualTo("b");
+    }
+
+    @Test
+    void processedConfigs_reflectsDeletedConfigs() {
+        storage.saveConfigs(List.of(
+            new Configuration("/config/tenants/A/a.yml", "a"),
+            new Configuration("/config/tenants/A/b.yml", "b")
+        ));
+
+        storage.saveConfigs(List.of(new Configuration("/config/tenants/A/a.yml", "")));
+
+        assertThat(storage.getProcessedConfigs()).containsOnlyKeys("/config/tenants/A/b.yml");
+    }
+
+    @Test
+    void processedConfigs_isImmutableSnapshot() {
+        storage.saveConfigs(List.of(new Configuration("/config/tenants/A/a.yml", "a")));
+        Map<String, Configuration> snapshot = storage.getProcessedConfigs();
+
+        storage.saveConfigs(List.of(new Configuration("/config/tenants/A/c.yml", "c")));
+
+        assertThat(snapshot).containsOnlyKeys("/config/tenants/A/a.yml");
+        assertThat(storage.getProcessedConfigs()).containsOnlyKeys("/config/tenants/A/a.yml", "/config/tenants/A/c.yml");
+        assertThatThrownBy(() -> snapshot.put("/config/tenants/A/d.yml", new Configuration("/config/tenants/A/d.yml", "d")))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void processedConfigsByAntPatterns_followsUpdates() {
+        storage.saveConfigs(List.of(
+            new Configuration("/config/tenants/A/webapp/a.yml", "a"),
+            new Configuration("/config/tenants/A/roles.yml", "roles"),
+            new Configuration("/config/tenants/B/webapp/b.yml", "b")
+        ));
+        storage.saveConfigs(List.of(new Configuration("/config/tenants/B/webapp/b.yml", "")));
+
+        Map<String, Configuration> result = storage.getProcessedConfigsByAntPatterns(
+            List.of("/config/tenants/*/webapp/**", "/config/tenants/A/roles.yml"));
+
+        assertThat(result).containsOnlyKeys("/config/tenants/A/webapp/a.yml", "/config/tenants/A/roles.yml");
+    }
+
+    @Test
+    void parallelProcessing_appliesParentConfigsToAliasChildren() {
+        TenantAliasTreeStorage aliasTreeStorage = new TenantAliasTreeStorage(mock(TenantContextHolder.class));
+        aliasTreeStorage.internalUpdateAlisTreeWithoutRefresh(new Configuration(
+            "/config/tenants/tenant-aliases.yml",
+            "tenantAliasTree:\n  - key: MAIN\n    children:\n      - key: SUBMAIN\n        children:\n          - key: LIFETENANT\n"));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMemoryStorage().setParallelProcessingEnabled(true);
+        applicationProperties.getMemoryStorage().setParallelism(4);
+        MemoryConfigStorage parallelStorage = new MemoryConfigStorageImpl(List.of(), List.of(), aliasTreeStorage,
+                                                                          applicationProperties, new ReentrantLock());
+
+        List<Configuration> configs = new ArrayList<>(List.of(
+            new Configuration("/config/tenants/MAIN/main.yml", "main"),
+            new Configuration("/config/tenants/SUBMAIN/submain.yml", "submain"),
+            new Configuration("/config/tenants/LIFETENANT/life.yml", "life")
+        ));
+        IntStream.range(0, 20).forEach(i -> configs.add(new Configuration("/config/tenants/T" + i + "/t.yml", "t" + i)));
+        parallelStorage.replaceByConfiguration(configs);
+
+        assertThat(parallelStorage.getProcessedConfigs()).hasSize(26);
+        assertThat(parallelStorage.getProcessedConfigsFromTenant("LIFETENANT")).extracting(Configuration::getContent)
+            .containsExactlyInAnyOrder("main", "submain", "life");
+        assertThat(parallelStorage.getProcessedConfig("/config/tenants/T7/t.yml")).map(Configuration::getContent).contains("t7");
+        parallelStorage.shutdown();
+    }
+
+    @Test
+    void processors_areAppliedByPriorityOnlyToSupportedExtensions() {
+        List<String> calls = new ArrayList<>();
+        TenantConfigurationProcessor jsonProcessor = new SuffixProcessor("json", 10, calls);
+        TenantConfigurationProcessor anyProcessor = new SuffixProcessor("", 5, calls);
+        MemoryConfigStorage processingStorage = new MemoryConfigStorageImpl(
+            new ArrayList<>(List.of(jsonProcessor, anyProcessor)), List.of(),
+            new TenantAliasTreeStorage(mock(TenantContextHolder.class)), new ApplicationProperties(), new ReentrantLock());
+
+        processingStorage.saveConfigs(List.of(
+            new Configuration("/config/tenants/A/a.json", "a"),
+            new Configuration("/config/tenants/A/b.yml", "b")
+        ));
+
+        assertThat(processingStorage.getProcessedConfig("/config/tenants/A/a.json")).map(Configuration::getContent)
+            .contains("a-5-10");
+        assertThat(processingStorage.getProcessedConfig("/config/tenants/A/b.yml")).map(Configuration::getContent)
+            .contains("b-5");
+        assertThat(calls).containsExactlyInAnyOrder("5:/config/tenants/A/a.json", "10:/config/tenants/A/a.json",
+                                                    "5:/config/tenants/A/b.yml");
+    }
+
+    @Test
+    void processors_areDispatchedByDeclaredPathPatterns() {
+        List<String> calls = new ArrayList<>();
+        MemoryConfigStorage processingStorage = new MemoryConfigStorageImpl(
+            new ArrayList<>(List.of(new PatternProcessor("/config/tenants/{tenant}/roles.yml", calls))), List.of(),
+            new TenantAliasTreeStorage(mock(TenantContextHolder.class)), new ApplicationProperties(), new ReentrantLock());
+
+        processingStorage.saveConfigs(List.of(
+            new Configuration("/config/tenants/A/roles.yml", "roles"),
+            new Configuration("/config/tenants/A/other/roles.yml", "other")
+        ));
+
+        assertThat(calls).containsExactly("/config/tenants/A/roles.yml");
+    }
+
+    private record PatternProcessor(String pattern, List<String> calls) implements TenantConfigurationProcessor {
+
+        @Override
+        public List<String> getSupportedPathPatterns() {
+            return List.of(pattern);
+        }
+
+        @Override
+        public boolean isSupported(Configuration configuration) {
+            calls.add(configuration.getPath());
+            return true;
+        }
+
+        @Override
+        public List<Configuration> processConfiguration(Configuration configuration,
+                                                        Map<String, Configuration> originalStorage,
+                                                        Map<String, Configuration> targetStorage,
+                                                        Set<Configuration> configToReprocess,
+                                                        Map<String, Set<Configuration>> externalConfigs) {
+            return List.of();
+        }
+    }
+
+    private record SuffixProcessor(String extension, Integer priority, List<String> calls)
+        implements TenantConfigurationProcessor {
+
+        @Override
+        public Integer getPriority() {
+            return priority;
+        }
+
+        @Override
+        public Set<String> getSupportedExtensions() {
+            return extension.isEmpty() ? Set.of() : Set.of(extension);
+        }
+
+        @Override
+        public boolean isSupported(Configuration configuration) {
+            calls.add(priority + ":" + configuration.getPath());
+            return true;
+        }
+
+        @Override
+        public List<Configuration> processConfiguration(Configuration configuration,
+                                                        Map<String, Configuration> originalStorage,
+                                                        Map<String, Configuration> targetStorage,
+                                                        Set<Configuration> configToReprocess,
+                                                        Map<String, Set<Configuration>> externalConfigs) {
+            return List.of(new Configuration(configuration.getPath(), configuration.getContent() + "-" + priority));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.icthh.xm.ms.configuration.repository.impl;
+
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PersistentHashMapUnitTest extends AbstractUnitTest {
+
+    @Test
+    void plusAndMinus_behaveLikeHashMap() {
+        Random random = new Random(42);
+        Map<Integer, String> expected = new HashMap<>();
+        PersistentHashMap<Integer, String> actual = PersistentHashMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, "v" + i);
+                actual = actual.plus(key, "v" + i);
+            }
+        }
+
+        assertThat(actual).hasSize(expected.size());
+        assertThat(actual).isEqualTo(expected);
+        expected.forEach((key, value) -> assertThat(actual.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void modification_doesNotChangePreviousVersion() {
+        PersistentHashMap<String, String> first = PersistentHashMap.<String, String>empty()
+            .plus("a", "1")
+            .plus("b", "2");
+
+        PersistentHashMap<String, String> second = first.plus("a", "3").minus("b").plus("c", "4");
+
+        assertThat(first).containsOnly(Map.entry("a", "1"), Map.entry("b", "2"));
+        assertThat(second).containsOnly(Map.entry("a", "3"), Map.entry("c", "4"));
+        assertThat(first.plus("a", first.get("a"))).isSameAs(first);
+        assertThat(first.minus("unknown")).isSameAs(first);
+    }
+
+    @Test
+    void hashCollisions_areSupported() {
+        // "Aa" and "BB" have the same hash code
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty()
+            .plus("Aa", "1")
+            .plus("BB", "2")
+            .plus("AaAa", "3")
+            .plus("BBBB", "4");
+
+        assertThat(map).containsOnly(
+            Map.entry("Aa", "1"), Map.entry("BB", "2"), Map.entry("AaAa", "3"), Map.entry("BBBB", "4"));
+        assertThat(map.minus("Aa")).containsOnly(Map.entry("BB", "2"), Map.entry("AaAa", "3"), Map.entry("BBBB", "4"));
+        assertThat(map.minus("Aa").minus("BB").containsKey("BB")).isFalse();
+    }
+
+    @Test
+    void transientMap_tracksModifiedKeysAndKeepsSource() {
+        PersistentHashMap<String, String> source = PersistentHashMap.<String, String>empty()
+            .plus("a", "1")
+            .plus("b", "2")
+            .plus("c", "3");
+        TransientHashMap<String, String> map = new TransientHashMap<>(source);
+
+        map.put("d", "4");
+        map.remove("unknown");
+        map.entrySet().removeIf(entry -> entry.getKey().equals("a"));
+
+        assertThat(map.toPersistent()).containsOnlyKeys("b", "c", "d");
+        assertThat(map.getModifiedKeys()).containsOnly("a", "d");
+        assertThat(source).containsOnlyKeys("a", "b", "c");
+        assertThatThrownBy(() -> source.put("e", "5")).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -1,12 +1,16 @@
 package com.icthh.xm.ms.configuration.repository.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -15,10 +19,15 @@ import com.icthh.xm.ms.configuration.config.ApplicationProperties.S3Rules;
 import com.icthh.xm.ms.configuration.domain.ConfigVersion;
 import com.icthh.xm.ms.configuration.service.ConcurrentConfigModificationException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -27,16 +36,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
@@ -207,6 +219,40 @@ public class S3RepositoryUnitTest {
         verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
     }
 
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldNotWriteBatchWhenAnyHashMismatches(String configPath) {
+        setUp(configPath);
+        s3Repository = new S3Repository(s3Client, TEST_BUCKET_NAME, configPath, new S3Rules(), 4);
+        mockGetS3Object(configPrefix, "file2.yml", "existing-content", null);
+        var configs = List.of(new Configuration("/config/file1.yml", "new-content"),
+                new Configuration("/config/file2.yml", "new-content"),
+                new Configuration("/config/file3.yml", "new-content"));
+
+        assertThrows(ConcurrentConfigModificationException.class, () -> s3Repository.saveAll(configs,
+                Map.of("/config/file2.yml", DigestUtils.sha1Hex("other-content"))));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldNotWriteBatchWhenCachedObjectIsStale(String configPath) {
+        setUp(configPath);
+        s3Repository = new S3Repository(s3Client, TEST_BUCKET_NAME, configPath, new S3Rules(), 4);
+        var path = "/config/file2.yml";
+        mockCachedObject(path, "existing-content", "\"e1\"");
+        // object was written by another instance after it was cached
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(S3Exception.builder().statusCode(412).build());
+        mockGetS3Object(configPrefix, "file2.yml", "changed-content", null);
+        var configs = List.of(new Configuration("/config/file1.yml", "new-content"),
+                new Configuration(path, "new-content"),
+                new Configuration("/config/file3.yml", "new-content"));
+
+        assertThrows(ConcurrentConfigModificationException.class, () -> s3Repository.saveAll(configs,
+                Map.of(path, DigestUtils.sha1Hex("existing-content"))));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
     @ParameterizedTest(name = "configPath={0}")
     @MethodSource("data")
     public void shouldSaveWhenHashMatches(String configPath) {
@@ -226,6 +272,279 @@ public class S3RepositoryUnitTest {
         assertEquals(1, bodyCaptor.getAllValues().size());
     }
 
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldFetchConfigsConcurrently(String configPath) {
+        setUp(configPath);
+        int concurrency = 4;
+        s3Repository = new S3Repository(s3Client, TEST_BUCKET_NAME, configPath, new S3Rules(), concurrency);
+        var objects = IntStream.range(0, 50)
+                .mapToObj(i -> S3Object.builder().key(configPrefix + "file" + i + ".yml").build())
+                .toList();
+        var paginator = Mockito.mock(ListObjectsV2Iterable.class);
+        when(paginator.contents()).thenReturn(objects::iterator);
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenReturn(paginator);
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        when(s3Client.getObject(
+                any(GetObjectRequest.class),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any())
+        ).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+                if (request.key().endsWith("file7.yml")) {
+                    throw new IllegalStateException("broken object");
+                }
+                return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(),
+                        request.key().getBytes(StandardCharsets.UTF_8));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        var configs = s3Repository.findAll().getData();
+
+        assertEquals(50, configs.size());
+        for (int i = 0; i < 50; i++) {
+            var key = configPrefix + "file" + i + ".yml";
+            assertEquals(i == 7 ? null : key, configs.get(i).getContent());
+        }
+        assertTrue(maxInFlight.get() <= concurrency);
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldDownloadOnlyObjectsWithChangedETag(String configPath) {
+        setUp(configPath);
+        var key1 = configPrefix + "file1.yml";
+        var key2 = configPrefix + "file2.yml";
+        var listing = new ArrayList<>(List.of(
+                S3Object.builder().key(key1).eTag("\"e1\"").build(),
+                S3Object.builder().key(key2).eTag("\"e2\"").build()));
+        var paginator = Mockito.mock(ListObjectsV2Iterable.class);
+        when(paginator.contents()).thenAnswer(invocation -> (SdkIterable<S3Object>) List.copyOf(listing)::iterator);
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenReturn(paginator);
+        when(s3Client.getObject(
+                any(GetObjectRequest.class),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any())
+        ).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            var eTag = listing.stream().filter(o -> o.key().equals(request.key())).findFirst().orElseThrow().eTag();
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag(eTag).build(),
+                    (request.key() + eTag).getBytes(StandardCharsets.UTF_8));
+        });
+
+        s3Repository.findAll();
+        listing.set(1, S3Object.builder().key(key2).eTag("\"e2-changed\"").build());
+        var configs = s3Repository.findAll().getData();
+
+        assertEquals(List.of(key1 + "\"e1\"", key2 + "\"e2-changed\""),
+                configs.stream().map(Configuration::getContent).toList());
+        verify(s3Client, times(1)).getObject(
+                ArgumentMatchers.<GetObjectRequest>argThat(request -> key1.equals(request.key())),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any());
+        verify(s3Client).getObject(
+                ArgumentMatchers.<GetObjectRequest>argThat(request -> key2.equals(request.key())
+                        && "\"e2\"".equals(request.ifNoneMatch())),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any());
+
+        // deleted object is dropped from cache and downloaded again if it appears with the same ETag
+        listing.remove(0);
+        assertEquals(1, s3Repository.findAll().getData().size());
+        listing.add(0, S3Object.builder().key(key1).eTag("\"e1\"").build());
+        s3Repository.findAll();
+        verify(s3Client, times(2)).getObject(
+                ArgumentMatchers.<GetObjectRequest>argThat(request -> key1.equals(request.key())),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any());
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldReturnCachedContentWhenObjectNotModified(String configPath) {
+        setUp(configPath);
+        var path = "/config/test.file";
+        var key = configPrefix + "test.file";
+        when(s3Client.getObject(
+                ArgumentMatchers.<GetObjectRequest>argThat(request -> request != null && request.ifNoneMatch() == null),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any())
+        ).thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag("\"e1\"").versionId("v1").build(),
+                "content".getBytes(StandardCharsets.UTF_8)));
+        when(s3Client.getObject(
+                ArgumentMatchers.<GetObjectRequest>argThat(request -> request != null && key.equals(request.key())
+                        && "\"e1\"".equals(request.ifNoneMatch())),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any())
+        ).thenThrow(S3Exception.builder().statusCode(304).build());
+
+        assertEquals("content", s3Repository.find(path).getData().getContent());
+        var item = s3Repository.find(path);
+
+        assertEquals("content", item.getData().getContent());
+        assertEquals("v1", item.getVersion().getMainVersion());
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldCalculateVersionFromListing(String configPath) {
+        setUp(configPath);
+        var file1 = S3Object.builder().key(configPrefix + "file1.yml").eTag("\"e1\"").build();
+        var file2 = S3Object.builder().key(configPrefix + "file2.yml").eTag("\"e2\"").build();
+        mockListing(file2, file1);
+        mockGetS3Object(configPrefix, "file1.yml", "content", null);
+
+        var version = s3Repository.findAll().getVersion();
+        assertEquals(version, s3Repository.getCurrentVersion());
+        assertTrue(s3Repository.hasVersion(version));
+
+        mockListing(file1, file2);
+        assertEquals(version, s3Repository.getCurrentVersion());
+
+        mockListing(file1, S3Object.builder().key(configPrefix + "file2.yml").eTag("\"e2-changed\"").build());
+        var changed = s3Repository.getCurrentVersion();
+        assertNotEquals(version, changed);
+        // listing without reading content does not make version known
+        assertFalse(s3Repository.hasVersion(changed));
+        assertTrue(s3Repository.hasVersion(version));
+
+        mockGetListS3Objects("TENANT1", "tenant1_content");
+        assertEquals("s3", s3Repository.findAllInTenant("TENANT1").getVersion().getMainVersion());
+        assertFalse(s3Repository.hasVersion(changed));
+
+        var loaded = s3Repository.findAll().getVersion();
+        assertEquals(changed, loaded);
+        assertTrue(s3Repository.hasVersion(changed));
+        assertFalse(s3Repository.hasVersion(version));
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldWriteWithIfMatchWhenCachedHashMatches(String configPath) {
+        setUp(configPath);
+        var path = "/config/file1.yml";
+        var key = configPrefix + "file1.yml";
+        mockCachedObject(path, "existing-content", "\"e1\"");
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"e2\"").build());
+
+        s3Repository.saveAll(List.of(new Configuration(path, "new-content")),
+                Map.of(path, DigestUtils.sha1Hex("existing-content")));
+
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any());
+        verify(s3Client).putObject(ArgumentMatchers.<PutObjectRequest>argThat(request ->
+                key.equals(request.key()) && "\"e1\"".equals(request.ifMatch())), any(RequestBody.class));
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldThrowConcurrentModificationWhenIfMatchFails(String configPath) {
+        setUp(configPath);
+        var path = "/config/file1.yml";
+        mockCachedObject(path, "existing-content", "\"e1\"");
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().statusCode(412).build());
+
+        assertThrows(ConcurrentConfigModificationException.class, () -> s3Repository.saveAll(
+                List.of(new Configuration(path, "new-content")), Map.of(path, DigestUtils.sha1Hex("existing-content"))));
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldCheckHashBeforeWriteWhenIfMatchIsNotSupported(String configPath) {
+        setUp(configPath);
+        var path = "/config/file1.yml";
+        var key = configPrefix + "file1.yml";
+        mockCachedObject(path, "existing-content", "\"e1\"");
+        when(s3Client.putObject(ArgumentMatchers.<PutObjectRequest>argThat(request -> request != null
+                && request.ifMatch() != null), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().statusCode(501).build());
+        when(s3Client.putObject(ArgumentMatchers.<PutObjectRequest>argThat(request -> request != null
+                && request.ifMatch() == null), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().build());
+
+        s3Repository.saveAll(List.of(new Configuration(path, "new-content")),
+                Map.of(path, DigestUtils.sha1Hex("existing-content")));
+
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any());
+        verify(s3Client).putObject(ArgumentMatchers.<PutObjectRequest>argThat(request ->
+                key.equals(request.key()) && request.ifMatch() == null), any(RequestBody.class));
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldSaveAllConfigurationsConcurrently(String configPath) {
+        setUp(configPath);
+        int concurrency = 4;
+        s3Repository = new S3Repository(s3Client, TEST_BUCKET_NAME, configPath, new S3Rules(), concurrency);
+        var configs = IntStream.range(0, 20)
+                .mapToObj(i -> new Configuration("/config/file" + i + ".yml", "content-" + i))
+                .toList();
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        var written = ConcurrentHashMap.<String>newKeySet();
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+                written.add(getBodyContent(invocation.getArgument(1)));
+                return PutObjectResponse.builder().build();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        s3Repository.saveAll(configs, Map.of());
+
+        assertEquals(configs.stream().map(Configuration::getContent).collect(Collectors.toSet()), written);
+        assertTrue(maxInFlight.get() <= concurrency);
+    }
+
+    @ParameterizedTest(name = "configPath={0}")
+    @MethodSource("data")
+    public void shouldImportOnlyChangedConfigurationsAndDeleteAbsent(String configPath) {
+        setUp(configPath);
+        s3Repository = new S3Repository(s3Client, TEST_BUCKET_NAME, configPath, new S3Rules(), 4);
+        mockListing(
+                S3Object.builder().key(configPrefix + "same.yml").eTag("\"" + DigestUtils.md5Hex("same") + "\"").build(),
+                S3Object.builder().key(configPrefix + "changed.yml").eTag("\"" + DigestUtils.md5Hex("old") + "\"").build(),
+                S3Object.builder().key(configPrefix + "absent.yml").eTag("\"e1\"").build());
+        var bodyCaptor = ArgumentCaptor.forClass(RequestBody.class);
+        var requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        when(s3Client.putObject(requestCaptor.capture(), bodyCaptor.capture()))
+                .thenReturn(PutObjectResponse.builder().build());
+
+        s3Repository.setRepositoryState(Stream.of(
+                new Configuration("/config/same.yml", "same"),
+                new Configuration("/config/changed.yml", "new"),
+                new Configuration("/config/added.yml", "added")));
+
+        assertEquals(Set.of(configPrefix + "changed.yml", configPrefix + "added.yml"),
+                requestCaptor.getAllValues().stream().map(PutObjectRequest::key).collect(Collectors.toSet()));
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client).deleteObjects(deleteCaptor.capture());
+        assertEquals(List.of(configPrefix + "absent.yml"),
+                deleteCaptor.getValue().delete().objects().stream().map(ObjectIdentifier::key).toList());
+    }
+
+    private void mockCachedObject(String path, String content, String eTag) {
+        when(s3Client.getObject(
+                any(GetObjectRequest.class),
+                ArgumentMatchers.<ResponseTransformer<GetObjectResponse, ResponseBytes<GetObjectResponse>>>any())
+        ).thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag(eTag).build(),
+                content.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(content, s3Repository.find(path).getData().getContent());
+    }
+
+    private void mockListing(S3Object... objects) {
+        var paginator = Mockito.mock(ListObjectsV2Iterable.class);
+        when(paginator.contents()).thenReturn(List.of(objects)::iterator);
+        when(s3Client.listObjectsV2Paginator(ArgumentMatchers.<ListObjectsV2Request>argThat(request ->
+                request != null && TEST_BUCKET_NAME.equals(request.bucket()) && configPrefix.equals(request.prefix()))))
+                .thenReturn(paginator);
+    }
+
     private void mockPutS3Object(ArgumentCaptor<RequestBody> bodyCaptor, String fileName,
             String testVersion) {
         when(s3Client.putObject(any(PutObjectRequest.class), bodyCaptor.capture())).thenAnswer(invocation -> {
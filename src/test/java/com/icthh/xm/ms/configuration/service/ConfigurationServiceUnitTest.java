@@ -24,6 +24,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -36,6 +42,7 @@ import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -133,6 +140,7 @@ public class ConfigurationServiceUnitTest extends AbstractUnitTest {
 
         configurationService.getConfigurationMap("someVersion");
 
+        verify(persistenceRepository).fetch(version);
         verify(persistenceRepository).findAll();
         verify(versionCache).addVersion(version);
         verify(memoryStorage).replaceByConfiguration(eq(
@@ -144,6 +152,37 @@ public class ConfigurationServiceUnitTest extends AbstractUnitTest {
         verifyNoMoreInteractions(configTopicProducer);
     }
 
+    @Test
+    public void alignVersion_shouldLoadRequestedVersionOnceForConcurrentRequests() throws Exception {
+        ConfigVersion version = new ConfigVersion("someVersion");
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(configVersionDeserializer.from("someVersion")).thenReturn(version);
+        when(persistenceRepository.hasVersion(version)).thenReturn(false);
+        when(persistenceRepository.findAll()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await();
+            return new ConfigurationList(version, List.of(new Configuration("path", "content")));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> configurationService.getConfigurationMap("someVersion"));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> configurationService.getConfigurationMap("someVersion"));
+            verify(persistenceRepository, timeout(5000).times(3)).hasVersion(version);
+            releaseLoad.countDown();
+
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(persistenceRepository).findAll();
+        verify(memoryStorage).replaceByConfiguration(anyList());
+    }
+
     @Test
     public void alignVersion_shouldNotUpdateConfigIfOnCommit() {
         ConfigVersion version = new ConfigVersion("someVersion");
@@ -377,4 +416,88 @@ public class ConfigurationServiceUnitTest extends AbstractUnitTest {
         verify(versionCache).addVersion(version);
     }
 
+    @Test
+    public void refreshConfiguration_shouldApplyOnlyChangesSinceAppliedVersion() {
+        ConfigVersion v1 = new ConfigVersion("v1");
+        ConfigVersion v2 = new ConfigVersion("v2");
+        List<Configuration> changes = List.of(new Configuration("path", "changed"), new Configuration("deleted", ""));
+        when(persistenceRepository.findAll()).thenReturn(new ConfigurationList(v1, List.of(new Configuration("path", "content"))));
+        when(persistenceRepository.findChanges(v1)).thenReturn(Optional.of(new ConfigurationList(v2, changes)));
+        when(memoryStorage.saveConfigs(changes)).thenReturn(Set.of("path"));
+
+        configurationService.refreshConfiguration();
+        configurationService.refreshConfiguration();
+
+        verify(persistenceRepository).findAll();
+        verify(memoryStorage).saveConfigs(changes);
+        verify(configTopicProducer).notifyConfigurationChanged(v2, List.of("path"));
+        assertEquals(v2, versionCache.getAppliedVersion());
+        assertEquals(v2, versionCache.getLastVersion());
+    }
+
+    @Test
+    public void refreshConfiguration_shouldReloadAllWhenChangesNotAvailable() {
+        ConfigVersion v1 = new ConfigVersion("v1");
+        ConfigVersion v2 = new ConfigVersion("v2");
+        when(persistenceRepository.findAll())
+            .thenReturn(new ConfigurationList(v1, List.of(new Configuration("path", "content"))))
+            .thenReturn(new ConfigurationList(v2, List.of(new Configuration("path", "changed"))));
+        when(persistenceRepository.findChanges(v1)).thenReturn(Optional.empty());
+
+        configurationService.refreshConfiguration();
+        configurationService.refreshConfiguration();
+
+        verify(persistenceRepository, Mockito.times(2)).findAll();
+        verify(memoryStorage, never()).saveConfigs(anyList());
+        assertEquals(v2, versionCache.getAppliedVersion());
+    }
+
+    @Test
+    public void updateConfiguration_shouldReloadMemoryWhenPersistenceFails() {
+        ConfigVersion v1 = new ConfigVersion("v1");
+        Configuration configuration = new Configuration("path", "content");
+        List<Configuration> persisted = List.of(new Configuration("path", "persisted"));
+        when(persistenceRepository.saveAllAsync(List.of(configuration), Map.of()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("push rejected")));
+        when(persistenceRepository.findAll()).thenReturn(new ConfigurationList(v1, persisted));
+
+        assertThrows(IllegalStateException.class, () -> configurationService.updateConfiguration(configuration));
+
+        verify(memoryStorage).saveConfigs(List.of(configuration));
+        verify(memoryStorage).replaceByConfiguration(persisted);
+        assertEquals(v1, versionCache.getAppliedVersion());
+        verifyNoMoreInteractions(configTopicProducer);
+    }
+
+    @Test
+    public void fetchConfiguration_shouldApplyFetchedChanges() {
+        ConfigVersion v1 = new ConfigVersion("v1");
+        ConfigVersion v2 = new ConfigVersion("v2");
+        List<Configuration> changes = List.of(new Configuration("path", "fetched"));
+        when(persistenceRepository.findAll()).thenReturn(new ConfigurationList(v1, List.of(new Configuration("path", "content"))));
+        when(persistenceRepository.findChanges(v1)).thenReturn(Optional.of(new ConfigurationList(v2, changes)));
+        when(memoryStorage.saveConfigs(changes)).thenReturn(Set.of("path"));
+
+        configurationService.refreshConfiguration();
+        configurationService.fetchConfiguration();
+
+        verify(persistenceRepository).fetch();
+        verify(memoryStorage).saveConfigs(changes);
+        verify(configTopicProducer).notifyConfigurationChanged(v2, List.of("path"));
+        assertEquals(v2, versionCache.getAppliedVersion());
+    }
+
+    @Test
+    public void refreshConfiguration_shouldReloadAllAfterInMemoryUpdate() {
+        ConfigVersion v1 = new ConfigVersion("v1");
+        when(persistenceRepository.findAll()).thenReturn(new ConfigurationList(v1, List.of(new Configuration("path", "content"))));
+
+        configurationService.refreshConfiguration();
+        configurationService.updateConfigurationInMemory(List.of(new Configuration("path", "inmemory")));
+        configurationService.refreshConfiguration();
+
+        verify(persistenceRepository, Mockito.times(2)).findAll();
+        verify(persistenceRepository, never()).findChanges(v1);
+    }
+
 }
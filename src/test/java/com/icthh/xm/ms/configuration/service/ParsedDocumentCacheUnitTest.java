@@ -0,0 +1,63 @@
+package com.icthh.xm.ms.configuration.service;
+
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache.DocumentFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParsedDocumentCacheUnitTest extends AbstractUnitTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ParsedDocumentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ParsedDocumentCache(new ApplicationProperties(), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readValue_parsesSameContentOnceAndReturnsIndependentCopies() {
+        String content = "roles:\n  ADMIN:\n    name: admin\n";
+
+        Map<String, Object> first = cache.readValue(content, DocumentFormat.YAML, Map.class);
+        ((Map<String, Object>) first.get("roles")).clear();
+        Map<String, Object> second = cache.readValue(content, DocumentFormat.YAML, Map.class);
+
+        assertThat(second).isEqualTo(Map.of("roles", Map.of("ADMIN", Map.of("name", "admin"))));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void readTree_returnsDeepCopy() {
+        String content = "{\"a\": {\"b\": 1}}";
+
+        ObjectNode tree = (ObjectNode) cache.readTree(content, DocumentFormat.JSON);
+        tree.putObject("a").put("b", 2);
+
+        assertThat(cache.readTree(content, DocumentFormat.JSON).get("a").get("b").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void readTree_doesNotKeepDocumentsOverMaxBytes() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setParsedDocumentCacheMaxBytes(1024L);
+        ParsedDocumentCache smallCache = new ParsedDocumentCache(applicationProperties, meterRegistry);
+        String content = "key: " + "a".repeat(600);
+
+        smallCache.readTree(content, DocumentFormat.YAML);
+        smallCache.readTree(content, DocumentFormat.YAML);
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+    }
+}
@@ -22,6 +22,8 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import static com.icthh.xm.ms.configuration.service.processors.EnvConfigExternalizationUnitTest.ENV_BLACKLIST;
 import static java.util.Collections.emptyMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SystemStubsExtension.class)
 public class EnvConfigExternalizationFromFileUnitTest extends AbstractUnitTest {
@@ -51,4 +53,14 @@ public class EnvConfigExternalizationFromFileUnitTest extends AbstractUnitTest {
             .processConfiguration(configuration, originalStorage, emptyMap(), new HashSet<>(), new HashMap<>());
         assertEquals(TestUtil.loadFile("someConfigFromFileExpected"), processedConfigurations.get(0).getContent());
     }
+
+    @Test
+    public void testSupportedOnlyPlaceholdersAndTenantProfile() {
+        EnvConfigExternalizationFromFile processor = new EnvConfigExternalizationFromFile(new ApplicationProperties());
+
+        assertTrue(processor.isSupported(new Configuration("/config/tenants/XM/someConfig", "a: ${environment.A}")));
+        assertTrue(processor.isSupported(new Configuration("/config/tenants/XM/tenant-profile.yml", "a: b")));
+        assertFalse(processor.isSupported(new Configuration("/config/tenants/XM/someConfig", "a: b")));
+        assertFalse(processor.isSupported(new Configuration("/config/tenants/XM/folder/tenant-profile.yml", "a: b")));
+    }
 }
@@ -0,0 +1,114 @@
+package com.icthh.xm.ms.configuration.service.processors;
+
+import com.icthh.xm.commons.config.domain.Configuration;
+import com.icthh.xm.commons.lep.api.LepManagementService;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.commons.tenant.internal.DefaultTenantContextHolder;
+import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import com.icthh.xm.ms.configuration.service.TenantAliasTreeStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LepConfigProcessorUnitTest extends AbstractUnitTest {
+
+    private static final String TENANT_ALIAS_TREE = """
+        ---
+        tenantAliasTree:
+          - key: MAIN
+            children:
+              - key: SUBMAIN
+        """;
+
+    private final TenantContextHolder tenantContextHolder = new DefaultTenantContextHolder();
+    private final TenantAliasTreeStorage tenantAliasTreeStorage = new TenantAliasTreeStorage(tenantContextHolder);
+
+    @Mock
+    private LepManagementService lepManager;
+
+    private LepConfigProcessor self;
+    private LepConfigProcessor processor;
+
+    @BeforeEach
+    public void before() {
+        tenantAliasTreeStorage.internalUpdateAlisTreeWithoutRefresh(
+            new Configuration("/config/tenants/tenant-aliases.yml", TENANT_ALIAS_TREE));
+        processor = new LepConfigProcessor(tenantContextHolder, lepManager, tenantAliasTreeStorage);
+        // without LEP engine default java implementations are executed, as when there is no script
+        self = mock(LepConfigProcessor.class);
+        when(self.isSupportedWithResolver(any())).thenAnswer(invocation -> processor.isSupportedWithResolver(invocation.getArgument(0)));
+        when(self.isSupportedForAll(any())).thenAnswer(invocation -> processor.isSupportedForAll(invocation.getArgument(0)));
+        processor.setSelf(self);
+    }
+
+    @Test
+    public void shouldCacheResultWhenThereIsNoLep() {
+        Configuration configuration = config("MAIN", "entity/specs/xmentityspec.yml");
+
+        assertFalse(processor.isSupported(configuration));
+        assertFalse(processor.isSupported(configuration));
+
+        verify(self, times(1)).isSupportedWithResolver(configuration);
+    }
+
+    @Test
+    public void shouldNotCacheResultWhenTenantHasIsSupportedLep() {
+        Configuration configuration = config("MAIN", "entity/specs/xmentityspec.yml");
+        processor.isSupported(config("MAIN", "config/lep/processors/entity/specs/IsSupported$$xmentityspec.yml$$around.groovy"));
+
+        processor.isSupported(configuration);
+        processor.isSupported(configuration);
+
+        verify(self, times(2)).isSupportedWithResolver(configuration);
+    }
+
+    @Test
+    public void shouldResetCacheOfAliasChildrenWhenParentLepAdded() {
+        Configuration configuration = config("SUBMAIN", "entity/specs/xmentityspec.yml");
+        processor.isSupported(configuration);
+        processor.isSupported(configuration);
+
+        processor.isSupported(config("MAIN", "config/lep/processors/IsSupported$$around.groovy"));
+        processor.isSupported(configuration);
+        processor.isSupported(configuration);
+
+        verify(self, times(3)).isSupportedWithResolver(configuration);
+    }
+
+    @Test
+    public void shouldResetCacheOfAllTenantsWhenCommonsLepAdded() {
+        Configuration configuration = config("MAIN", "entity/specs/xmentityspec.yml");
+        processor.isSupported(configuration);
+
+        processor.isSupported(config("commons", "config/lep/processors/IsSupported$$around.groovy"));
+        processor.isSupported(configuration);
+        processor.isSupported(configuration);
+
+        verify(self, times(3)).isSupportedWithResolver(configuration);
+    }
+
+    @Test
+    public void shouldOpenLepSessionOncePerTenantBatch() {
+        processor.processTenantBatch("MAIN", () -> {
+            assertTrue(tenantContextHolder.getTenantKey().equalsIgnoreCase("MAIN"));
+            processor.isSupported(config("MAIN", "entity/specs/first.yml"));
+            processor.isSupported(config("MAIN", "entity/specs/second.yml"));
+        });
+        verify(lepManager, times(1)).beginThreadContext();
+
+        processor.isSupported(config("MAIN", "entity/specs/third.yml"));
+        verify(lepManager, times(2)).beginThreadContext();
+    }
+
+    private static Configuration config(String tenant, String relativePath) {
+        return new Configuration("/config/tenants/" + tenant + "/" + relativePath, "content");
+    }
+}
@@ -5,7 +5,10 @@ import tools.jackson.databind.ObjectMapper;
 import tools.jackson.dataformat.yaml.YAMLMapper;
 import com.icthh.xm.commons.config.domain.Configuration;
 import com.icthh.xm.ms.configuration.AbstractUnitTest;
+import com.icthh.xm.ms.configuration.config.ApplicationProperties;
+import com.icthh.xm.ms.configuration.service.ParsedDocumentCache;
 import com.icthh.xm.ms.configuration.web.rest.TestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -122,7 +125,8 @@ public class TenantConfigExternalizationUnitTest extends AbstractUnitTest {
     @SneakyThrows
     private Object overrideParameterAndReturnResult(List<String> path) {
         Configuration configuration = new Configuration("/config/tenants/XM/tenant-config.yml", TestUtil.loadFile("tenant-config.yml"));
-        List<Configuration> processedConfigurations = new TenantConfigExternalization()
+        List<Configuration> processedConfigurations = new TenantConfigExternalization(
+            new ParsedDocumentCache(new ApplicationProperties(), new SimpleMeterRegistry()))
             .processConfiguration(configuration, emptyMap(), emptyMap(), new HashSet<>(), new HashMap<>());
         Configuration processedConfiguration = configuration;
         if (!processedConfigurations.isEmpty()) {
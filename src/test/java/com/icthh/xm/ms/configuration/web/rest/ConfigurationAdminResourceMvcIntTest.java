@@ -13,6 +13,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static com.icthh.xm.ms.configuration.config.Constants.API_PREFIX;
 import static com.icthh.xm.ms.configuration.config.Constants.CONFIG;
+import static com.icthh.xm.ms.configuration.config.Constants.FETCH;
 import static com.icthh.xm.ms.configuration.config.Constants.RECLONE;
 import static com.icthh.xm.ms.configuration.config.Constants.REFRESH;
 import static org.mockito.ArgumentMatchers.eq;
@@ -68,4 +69,14 @@ public class ConfigurationAdminResourceMvcIntTest extends AbstractSpringBootTest
         verify(configurationService).recloneConfiguration();
         verifyNoMoreInteractions(configurationService);
     }
+
+    @Test
+    @SneakyThrows
+    public void testFetchConfiguration() {
+        restTaskMockMvc.perform(post(API_PREFIX + CONFIG + FETCH))
+            .andExpect(status().is2xxSuccessful());
+
+        verify(configurationService).fetchConfiguration();
+        verifyNoMoreInteractions(configurationService);
+    }
 }